@@ -2,17 +2,26 @@
 AVL Tree Class
 Written by Giancarlo Calle
 */
-import java.util.Stack;
-import java.util.Queue;
-import java.util.LinkedList;
-
-public class AVL{
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntConsumer;
+
+public class AVL implements OrderedIntSet{
   //Node struct used in the tree
   class Node{
     int data;
     Node right;
     Node left;
 
+    //height of the subtree rooted at this node, leaves are 0
+    int height;
+
+    //number of nodes in the subtree rooted at this node
+    int subtreeSize = 1;
+
     //Node constructor
     Node(int data){
       this.data = data;
@@ -28,14 +37,58 @@ public class AVL{
   //will be root of the tree
   Node root;
 
+  //number of nodes in the tree, the root's cached subtree size
+  @Override
+  public int getSize(){
+    return subtreeSize(root);
+  }
+
   //records the amount of levels of the tree traversed w/ methods
-  int levels;
-  public int getLevels(){
+  long levels;
+  @Override
+  public long getLevels(){
     return levels;
   }
 
-  //stack used to store parents for methods
-  private Stack<Node> stack = new Stack<>();
+  //metrics recorded by the inserts, deletes, contains and rebalancing,
+  //null when off so the only cost is a null check
+  private TreeMetrics metrics;
+  void setMetrics(TreeMetrics metrics){
+    this.metrics = metrics;
+  }
+
+  TreeMetrics getMetrics(){
+    return metrics;
+  }
+
+  //stack used to store parents for methods. Kept in a preallocated array
+  //instead of java.util.Stack so paths don't lock or allocate. An AVL of
+  //2^31 nodes is at most 45 levels tall (about 1.44 log2(n)), so the array
+  //never needs to grow in practice
+  private Node[] stack = new Node[48];
+  private int stackSize;
+
+  //adds node to the top of the stack
+  private void push(Node node){
+    if(stackSize == stack.length)
+      stack = Arrays.copyOf(stack, stackSize * 2);
+    stack[stackSize] = node;
+    stackSize++;
+  }
+
+  //removes and returns the top of the stack, clearing its slot so deleted
+  //nodes aren't kept reachable
+  private Node pop(){
+    stackSize--;
+    Node node = stack[stackSize];
+    stack[stackSize] = null;
+    return node;
+  }
+
+  //returns the top of the stack
+  private Node peek(){
+    return stack[stackSize - 1];
+  }
 
   //prints nodes in AVL
   private void printHelper(Node node){
@@ -53,6 +106,20 @@ public class AVL{
 
   //method for right rotation using grand parent node
   public Node rotationR(Node p){
+    Node c = rotateRight(p);
+
+    //if p was root, changes root
+    if(root == p){
+      root = c;
+    }
+    return c;
+  }
+
+  //Rotates p's subtree right and returns its new top, leaving root alone.
+  //balance() uses these so the set algebra can rotate detached subtrees
+  //from several threads without reading or writing the shared root; its
+  //callers link the new top in themselves
+  private Node rotateRight(Node p){
     //gets child node
     Node c = p.left;
     Node cRight = c.right;
@@ -61,16 +128,17 @@ public class AVL{
     c.right = p;
     p.left = cRight;
 
-    //if p was root, changes root
-    if(root == p){
-      root = c;
-    }
+    //p is now below c, so its height is updated first
+    updateNode(p);
+    updateNode(c);
 
+    if(metrics != null)
+      metrics.rotation();
     return c;
   }
 
-  //method for left rotation using parent node
-  private Node rotationL(Node p){
+  //rotates p's subtree left like rotateRight(), leaving root alone
+  private Node rotateLeft(Node p){
     //gets child node
     Node c = p.right;
     Node cLeft = c.left;
@@ -79,47 +147,49 @@ public class AVL{
     c.left = p;
     p.right = cLeft;
 
-    //if gp is root, changes root
-    if(root == p)
-      root = c;
+    //p is now below c, so its height is updated first
+    updateNode(p);
+    updateNode(c);
 
+    if(metrics != null)
+      metrics.rotation();
     return c;
   }
 
-  /*
-  ----------------------------------------------------
-  RECUSIVE METHODS
-  ----------------------------------------------------
-  */
-
-  //recursively returns height of tree
-  private int heightRec(Node node){
-    //edge case if node is null
-    if(node == null)
-      return -1;
-
-    //grabs heights from left and right subtrees
-    int left = heightRec(node.left) + 1;
-    int right = heightRec(node.right) + 1;
+  //returns the cached height of a node, null nodes are -1
+  private int height(Node node){
+    return (node == null ? -1 : node.height);
+  }
 
-    //returns bigger number
-    return (left > right ? left : right);
+  //returns the cached subtree size of a node, null nodes are 0
+  private int subtreeSize(Node node){
+    return (node == null ? 0 : node.subtreeSize);
   }
 
+  //recomputes the height and subtree size of a node from its children's
+  //cached values
+  private void updateNode(Node node){
+    int left = height(node.left);
+    int right = height(node.right);
+    node.height = (left > right ? left : right) + 1;
+    node.subtreeSize = subtreeSize(node.left) + subtreeSize(node.right) + 1;
+  }
 
-  //returns the balance factor (bf) of a node recursively
-  private int bfRec(Node node){
-    return heightRec(node.left) - heightRec(node.right);
+  //returns the balance factor (bf) of a node
+  private int bf(Node node){
+    return height(node.left) - height(node.right);
   }
 
-  //balances tree based on root (node)
-  private Node balanceRec(Node node){
+  //balances the subtree at node and returns its new top, children must
+  //already be up to date. Never changes root, callers relink the result
+  private Node balance(Node node){
     //cannot balance a null node
     if(node == null)
       return null;
 
     //grabs balance factor
-    int bf = bfRec(node);
+    updateNode(node);
+    int bf = bf(node);
 
     //do nothing if balance factor is fine
     if(bf <= 1 && bf >= -1)
@@ -127,28 +197,857 @@ public class AVL{
 
     Node replace;
     if(bf > 1){ //node is left heavy
-      if(bfRec(node.left) <= -1){ //left node is right heavy
-        node.left = rotationL(node.left);
+      if(bf(node.left) <= -1){ //left node is right heavy
+        node.left = rotateLeft(node.left);
       }
-      replace = rotationR(node);
+      replace = rotateRight(node);
     }
 
     else{ //node is right heavy
-      if(bfRec(node.right) >= 1){ //right node is left heavy
-        node.right = rotationR(node.right);
+      if(bf(node.right) >= 1){ //right node is left heavy
+        node.right = rotateRight(node.right);
       }
-      replace = rotationL(node);
+      replace = rotateLeft(node);
     }
 
     return replace;
   }
 
+  /*
+  ----------------------------------------------------
+  BULK LOADING
+  ----------------------------------------------------
+  */
+
+  //builds a perfectly balanced AVL from an ascending array in O(n) without
+  //rotations. Duplicates are kept once like insertIter does
+  static AVL fromSorted(int[] arr){
+    int[] keys = Sort.dedupeSorted(arr);
+
+    AVL tree = new AVL();
+    tree.root = tree.buildSorted(keys, 0, keys.length - 1);
+    return tree;
+  }
+
+  //Copies the keys into a read only FrozenIntSet, which searches faster than
+  //the tree once it no longer changes. A set holds each key once, so copies
+  //added with insertDupIter are dropped
+  FrozenIntSet freeze(){
+    int[] keys = new int[getSize()];
+    inorderIter(keys);
+    return FrozenIntSet.fromSorted(Sort.dedupeSorted(keys));
+  }
+
+  //sorts a copy of arr and bulk loads it, faster than n inserts
+  static AVL fromUnsorted(int[] arr){
+    int[] sorted = Arrays.copyOf(arr, arr.length);
+    Arrays.sort(sorted);
+    return fromSorted(sorted);
+  }
+
+  //builds a balanced subtree from keys[lo..hi], the middle key is the root.
+  //Recursion is only log2(n) deep since both halves are the same size
+  private Node buildSorted(int[] keys, int lo, int hi){
+    if(lo > hi)
+      return null;
+
+    int mid = (lo + hi) >>> 1;
+    Node node = new Node(keys[mid]);
+    node.left = buildSorted(keys, lo, mid - 1);
+    node.right = buildSorted(keys, mid + 1, hi);
+    //children are built first, so their heights are already set
+    updateNode(node);
+    return node;
+  }
+
+  /*
+  ----------------------------------------------------
+  BATCH METHODS
+  ----------------------------------------------------
+  */
+
+  //returns whether applying a batch of m keys by rebuilding the tree, which
+  //is O(n + m), is cheaper than merging it down the tree in
+  //O(m log(n / m + 1)). Measured on 1M keys the merge is faster up to
+  //batches about as big as the tree, where both touch every node
+  private boolean rebuildCheaper(int m){
+    return m >= getSize();
+  }
+
+  //writes the nodes of the tree into nodes in order
+  private void inorderNodes(Node[] nodes){
+    Node curr = root;
+    int i = 0;
+    while(curr != null || stackSize > 0){
+      while(curr != null){
+        push(curr);
+        curr = curr.left;
+      }
+      curr = pop();
+      nodes[i] = curr;
+      i++;
+      curr = curr.right;
+    }
+  }
+
+  //relinks nodes[lo..hi] into a balanced subtree, reusing the nodes so a
+  //rebuild only allocates nodes for new keys
+  private Node linkSorted(Node[] nodes, int lo, int hi){
+    if(lo > hi)
+      return null;
+
+    int mid = (lo + hi) >>> 1;
+    Node node = nodes[mid];
+    node.left = linkSorted(nodes, lo, mid - 1);
+    node.right = linkSorted(nodes, mid + 1, hi);
+    updateNode(node);
+    return node;
+  }
+
+  //returns the index of the first key of batch[lo..hi] bigger than or equal
+  //to val, hi + 1 if none
+  private static int firstAtLeast(int[] batch, int lo, int hi, int val){
+    int found = Arrays.binarySearch(batch, lo, hi + 1, val);
+    return (found >= 0 ? found : -found - 1);
+  }
+
+  //Inserts the sorted, unique keys batch[lo..hi] into node's subtree and
+  //returns the new subtree. The batch is split by node's key, each half is
+  //merged into the child on its side and the halves are joined back with
+  //node, so every node is visited once for the whole batch instead of once
+  //per key below it: O(m log(n / m + 1)) instead of O(m log n). Recursion is
+  //as deep as the tree
+  private Node insertBatch(Node node, int[] batch, int lo, int hi){
+    if(lo > hi)
+      return node;
+    if(node == null)
+      return buildSorted(batch, lo, hi);
+
+    //records number of levels traversed
+    levels++;
+    int mid = firstAtLeast(batch, lo, hi, node.data);
+    int next = (mid <= hi && batch[mid] == node.data ? mid + 1 : mid);
+    Node left = insertBatch(node.left, batch, lo, mid - 1);
+    Node right = insertBatch(node.right, batch, next, hi);
+    node.left = null;
+    node.right = null;
+    return join(left, node, right);
+  }
+
+  //Deletes the sorted, unique keys batch[lo..hi] from node's subtree and
+  //returns what is left, splitting the batch like insertBatch()
+  private Node deleteBatch(Node node, int[] batch, int lo, int hi){
+    if(lo > hi || node == null)
+      return node;
+
+    //records number of levels traversed
+    levels++;
+    int mid = firstAtLeast(batch, lo, hi, node.data);
+    boolean found = (mid <= hi && batch[mid] == node.data);
+    Node left = deleteBatch(node.left, batch, lo, mid - 1);
+    Node right = deleteBatch(node.right, batch, (found ? mid + 1 : mid), hi);
+    if(found)
+      return join2(left, right);
+    node.left = null;
+    node.right = null;
+    return join(left, node, right);
+  }
+
+  //inserts every value of vals. Big batches are merged with the nodes of the
+  //tree and relinked in O(n + m), smaller ones are merged down the tree by
+  //insertBatch()
+  void insertAll(int[] vals){
+    if(metrics == null){
+      insertAllHelper(vals);
+      return;
+    }
+    long start = System.nanoTime();
+    long before = levels;
+    insertAllHelper(vals);
+    metrics.recordBatch(TreeMetrics.INSERT, System.nanoTime() - start,
+      levels - before, vals.length);
+  }
+
+  //insertAll helper
+  private void insertAllHelper(int[] vals){
+    int[] batch = Sort.sortAndDedupe(vals);
+    int i;
+    if(!rebuildCheaper(batch.length)){
+      root = insertBatch(root, batch, 0, batch.length - 1);
+      return;
+    }
+
+    //merges the tree's nodes with new nodes for keys only in the batch
+    Node[] nodes = new Node[getSize()];
+    inorderNodes(nodes);
+    Node[] merged = new Node[nodes.length + batch.length];
+    int k = 0;
+    int count = 0;
+    i = 0;
+    while(k < nodes.length || i < batch.length){
+      if(i == batch.length || (k < nodes.length && nodes[k].data <= batch[i])){
+        if(i < batch.length && nodes[k].data == batch[i])
+          i++;
+        merged[count] = nodes[k];
+        k++;
+      }
+      else{
+        merged[count] = new Node(batch[i]);
+        i++;
+      }
+      count++;
+    }
+
+    root = linkSorted(merged, 0, count - 1);
+  }
+
+  //deletes every value of vals, relinking the tree for big batches and
+  //merging smaller ones down the tree like insertAll does
+  void deleteAll(int[] vals){
+    if(metrics == null){
+      deleteAllHelper(vals);
+      return;
+    }
+    long start = System.nanoTime();
+    long before = levels;
+    deleteAllHelper(vals);
+    metrics.recordBatch(TreeMetrics.DELETE, System.nanoTime() - start,
+      levels - before, vals.length);
+  }
+
+  //deleteAll helper
+  private void deleteAllHelper(int[] vals){
+    int[] batch = Sort.sortAndDedupe(vals);
+    int i;
+    if(!rebuildCheaper(batch.length)){
+      root = deleteBatch(root, batch, 0, batch.length - 1);
+      return;
+    }
+
+    //keeps the tree's nodes whose keys are not in the batch
+    Node[] nodes = new Node[getSize()];
+    inorderNodes(nodes);
+    int count = 0;
+    int k;
+    i = 0;
+    for(k = 0; k < nodes.length; k++){
+      while(i < batch.length && batch[i] < nodes[k].data)
+        i++;
+      if(i < batch.length && batch[i] == nodes[k].data){
+        continue;
+      }
+      nodes[count] = nodes[k];
+      count++;
+    }
+
+    root = linkSorted(nodes, 0, count - 1);
+  }
+
+  //keys searched together by containsAll and rankAll
+  static final int BATCH_LANES = 16;
+
+  //Sets out[i] to whether keys[i] is in the tree, for every key. Walks
+  //BATCH_LANES keys down a level at a time together instead of one key to
+  //the bottom after another. Each walk waits on a cache miss at every node,
+  //but the walks don't wait on each other, so the CPU keeps that many misses
+  //going at once
+  void containsAll(int[] keys, boolean[] out){
+    if(out.length < keys.length)
+      throw new IllegalArgumentException("out holds " + out.length + " results, "
+        + keys.length + " keys given");
+    Node[] lanes = new Node[BATCH_LANES];
+    Node curr;
+    int from;
+    int count;
+    int active;
+    int lane;
+    int val;
+    for(from = 0; from < keys.length; from += BATCH_LANES){
+      count = Math.min(BATCH_LANES, keys.length - from);
+      for(lane = 0; lane < count; lane++){
+        lanes[lane] = root;
+        out[from + lane] = false;
+      }
+
+      //steps every walk still going down a level until all have finished
+      active = count;
+      while(active > 0){
+        active = 0;
+        for(lane = 0; lane < count; lane++){
+          curr = lanes[lane];
+          if(curr == null)
+            continue;
+          val = keys[from + lane];
+          if(curr.data == val){
+            out[from + lane] = true;
+            lanes[lane] = null;
+            continue;
+          }
+          curr = (curr.data > val ? curr.left : curr.right);
+          lanes[lane] = curr;
+          if(curr != null)
+            active++;
+
+          //records number of levels traversed
+          levels++;
+        }
+      }
+    }
+  }
+
+  //sets out[i] to the number of keys smaller than keys[i], for every key,
+  //walking BATCH_LANES keys together like containsAll
+  void rankAll(int[] keys, int[] out){
+    if(out.length < keys.length)
+      throw new IllegalArgumentException("out holds " + out.length + " results, "
+        + keys.length + " keys given");
+    Node[] lanes = new Node[BATCH_LANES];
+    Node curr;
+    int from;
+    int count;
+    int active;
+    int lane;
+    for(from = 0; from < keys.length; from += BATCH_LANES){
+      count = Math.min(BATCH_LANES, keys.length - from);
+      for(lane = 0; lane < count; lane++){
+        lanes[lane] = root;
+        out[from + lane] = 0;
+      }
+
+      active = count;
+      while(active > 0){
+        active = 0;
+        for(lane = 0; lane < count; lane++){
+          curr = lanes[lane];
+          if(curr == null)
+            continue;
+          if(curr.data < keys[from + lane]){
+            out[from + lane] += subtreeSize(curr.left) + 1;
+            curr = curr.right;
+          }
+          else
+            curr = curr.left;
+          lanes[lane] = curr;
+          if(curr != null)
+            active++;
+
+          //records number of levels traversed
+          levels++;
+        }
+      }
+    }
+  }
+
+  /*
+  ----------------------------------------------------
+  ITERATORS
+  ----------------------------------------------------
+  */
+
+  //iterator over the keys in order. Keeps its own path of parents so next()
+  //is amortized O(1) and iterators don't share the tree's stack. The tree
+  //must not be changed while iterating
+  private class Cursor implements PrimitiveIterator.OfInt{
+    private Node[] path = new Node[(root == null ? 1 : root.height + 2)];
+    private int pathSize;
+    private final boolean ascending;
+
+    //starts at the first key not before val in the direction of travel
+    Cursor(int val, boolean ascending){
+      this.ascending = ascending;
+
+      //stores every node on the way to val that is still to be visited
+      Node curr = root;
+      while(curr != null){
+        if(curr.data == val && !dups){
+          add(curr);
+          return;
+        }
+        if(curr.data == val || (curr.data > val) == ascending){
+          add(curr);
+          if(ascending)
+            curr = curr.left;
+          else
+            curr = curr.right;
+        }
+        else if(ascending)
+          curr = curr.right;
+        else
+          curr = curr.left;
+      }
+    }
+
+    //adds node to the top of the path
+    private void add(Node node){
+      if(pathSize == path.length)
+        path = Arrays.copyOf(path, pathSize * 2);
+      path[pathSize] = node;
+      pathSize++;
+    }
+
+    @Override
+    public boolean hasNext(){
+      return pathSize > 0;
+    }
+
+    @Override
+    public int nextInt(){
+      if(pathSize == 0)
+        throw new NoSuchElementException();
+
+      pathSize--;
+      Node node = path[pathSize];
+
+      //the nodes after node are the left (or right) spine of its other side
+      Node curr;
+      if(ascending){
+        curr = node.right;
+        while(curr != null){
+          add(curr);
+          curr = curr.left;
+        }
+      }
+      else{
+        curr = node.left;
+        while(curr != null){
+          add(curr);
+          curr = curr.right;
+        }
+      }
+      return node.data;
+    }
+  }
+
+  //iterates the keys from smallest to biggest
+  @Override
+  public PrimitiveIterator.OfInt iterator(){
+    return new Cursor(Integer.MIN_VALUE, true);
+  }
+
+  //iterates the keys from biggest to smallest
+  PrimitiveIterator.OfInt descendingIterator(){
+    return new Cursor(Integer.MAX_VALUE, false);
+  }
+
+  //iterates the keys bigger than or equal to val from smallest to biggest
+  PrimitiveIterator.OfInt iteratorFrom(int val){
+    return new Cursor(val, true);
+  }
+
+  //iterates the keys smaller than or equal to val from biggest to smallest
+  PrimitiveIterator.OfInt descendingIteratorFrom(int val){
+    return new Cursor(val, false);
+  }
+
+  /*
+  ----------------------------------------------------
+  SET ALGEBRA
+  ----------------------------------------------------
+  */
+
+  //Set operations split one tree by the root of the other, work on the two
+  //halves independently and join the results. Combining m keys with n keys
+  //takes O(m log(n/m + 1)) and reuses the nodes of both trees. Halves with
+  //more keys than this are done in parallel
+  static final int PARALLEL_GRAIN = 1 << 14;
+
+  //kinds of set operations
+  private static final int UNION = 0;
+  private static final int INTERSECTION = 1;
+  private static final int DIFFERENCE = 2;
+
+  //Joins left, mid and right into one balanced subtree, every key of left
+  //must be smaller than mid and every key of right bigger. Walks down the
+  //side of the taller tree until the heights match, so it takes
+  //O(|height(left) - height(right)|). None of the set algebra methods touch
+  //root or the stack, so halves can be worked on by different threads
+  private Node join(Node left, Node mid, Node right){
+    if(height(left) > height(right) + 1)
+      return joinRight(left, mid, right);
+    if(height(right) > height(left) + 1)
+      return joinLeft(left, mid, right);
+    mid.left = left;
+    mid.right = right;
+    updateNode(mid);
+    return mid;
+  }
+
+  //joins a taller left down its right side
+  private Node joinRight(Node left, Node mid, Node right){
+    if(height(left.right) <= height(right) + 1){
+      mid.left = left.right;
+      mid.right = right;
+      updateNode(mid);
+      left.right = mid;
+    }
+    else
+      left.right = joinRight(left.right, mid, right);
+
+    //each level grows by at most one, which balance can fix
+    return balance(left);
+  }
+
+  //joins a taller right down its left side
+  private Node joinLeft(Node left, Node mid, Node right){
+    if(height(right.left) <= height(left) + 1){
+      mid.left = left;
+      mid.right = right.left;
+      updateNode(mid);
+      right.left = mid;
+    }
+    else
+      right.left = joinLeft(left, mid, right.left);
+    return balance(right);
+  }
+
+  //joins left and right without a middle node, using the biggest node of
+  //left as the middle
+  private Node join2(Node left, Node right){
+    if(left == null)
+      return right;
+    Node[] rest = new Node[1];
+    Node last = splitLast(left, rest);
+    return join(rest[0], last, right);
+  }
+
+  //removes the biggest node of node's subtree and returns it, storing what
+  //is left of the subtree in rest[0]
+  private Node splitLast(Node node, Node[] rest){
+    if(node.right == null){
+      rest[0] = node.left;
+      node.left = null;
+      updateNode(node);
+      return node;
+    }
+    Node last = splitLast(node.right, rest);
+    node.right = rest[0];
+    rest[0] = balance(node);
+    return last;
+  }
+
+  //Splits node's subtree into the keys smaller than val, stored in out[0],
+  //and the keys bigger than val, stored in out[1]. Returns the node holding
+  //val cut loose from the tree, null if there is none. Takes O(log n), one
+  //join per level on the way back up
+  private Node split(Node node, int val, Node[] out){
+    if(node == null){
+      out[0] = null;
+      out[1] = null;
+      return null;
+    }
+
+    Node left = node.left;
+    Node right = node.right;
+    Node found;
+    if(val == node.data){
+      out[0] = left;
+      out[1] = right;
+      node.left = null;
+      node.right = null;
+      updateNode(node);
+      return node;
+    }
+    if(val < node.data){
+      found = split(left, val, out);
+      out[1] = join(out[1], node, right);
+    }
+    else{
+      found = split(right, val, out);
+      out[0] = join(left, node, out[0]);
+    }
+    return found;
+  }
+
+  //fork/join task combining subtrees a and b with a set operation. Tasks
+  //are only serializable because ForkJoinTask is, they are never serialized
+  @SuppressWarnings("serial")
+  private class SetTask extends RecursiveTask<Node>{
+    private final int op;
+    private final Node a;
+    private final Node b;
+
+    SetTask(int op, Node a, Node b){
+      this.op = op;
+      this.a = a;
+      this.b = b;
+    }
+
+    @Override
+    protected Node compute(){
+      return combine(op, a, b, true);
+    }
+  }
+
+  //combines subtrees a and b with op, forking the left halves off as tasks
+  //when parallel is set and they are big enough
+  private Node combine(int op, Node a, Node b, boolean parallel){
+    //cases: one side is empty
+    if(a == null)
+      return (op == UNION ? b : null);
+    if(b == null)
+      return (op == INTERSECTION ? null : a);
+
+    //Splits b by the root of a. Difference splits a by the root of b instead,
+    //since keys of b only remove keys
+    Node[] out = new Node[2];
+    Node mid;
+    Node found;
+    Node left;
+    Node right;
+    Node otherLeft;
+    Node otherRight;
+    if(op == DIFFERENCE){
+      mid = b;
+      found = split(a, b.data, out);
+      left = out[0];
+      right = out[1];
+      otherLeft = b.left;
+      otherRight = b.right;
+    }
+    else{
+      mid = a;
+      found = split(b, a.data, out);
+      left = a.left;
+      right = a.right;
+      otherLeft = out[0];
+      otherRight = out[1];
+    }
+
+    //combines the halves, the left one in another thread if it is big enough
+    Node l;
+    Node r;
+    if(parallel && subtreeSize(left) + subtreeSize(otherLeft) > PARALLEL_GRAIN
+        && subtreeSize(right) + subtreeSize(otherRight) > PARALLEL_GRAIN){
+      SetTask task = new SetTask(op, left, otherLeft);
+      task.fork();
+      r = combine(op, right, otherRight, true);
+      l = task.join();
+    }
+    else{
+      l = combine(op, left, otherLeft, parallel);
+      r = combine(op, right, otherRight, parallel);
+    }
+
+    //keeps a's root if the operation keeps its key
+    if(op == UNION || (op == INTERSECTION && found != null)){
+      mid.left = null;
+      mid.right = null;
+      return join(l, mid, r);
+    }
+    return join2(l, r);
+  }
+
+  //runs op on this tree and other on pool, leaving the result in this tree
+  //and other empty
+  private void combineWith(int op, AVL other, ForkJoinPool pool){
+    //case: both sides share one node graph, which splitting one would tear
+    //apart under the other. A set combined with itself is itself, except
+    //for difference which empties it
+    if(other == this){
+      if(op == DIFFERENCE)
+        root = null;
+      return;
+    }
+
+    Node a = root;
+    Node b = other.root;
+    root = null;
+    other.root = null;
+    if(pool.getParallelism() > 1)
+      root = pool.invoke(new SetTask(op, a, b));
+    else
+      root = combine(op, a, b, false);
+  }
+
+  //Moves the keys bigger than or equal to val into a new tree and returns
+  //it, this tree keeps the smaller keys. Takes O(log n)
+  AVL split(int val){
+    Node[] out = new Node[2];
+    Node found = split(root, val, out);
+    AVL right = new AVL();
+    right.root = (found == null ? out[1] : join(null, found, out[1]));
+    root = out[0];
+    return right;
+  }
+
+  //Moves every key of right, which must all be bigger than the keys of this
+  //tree, to the end of this tree and leaves right empty. Takes
+  //O(|height difference| + log n)
+  void join(AVL right){
+    if(root == null || right.root == null){
+      if(root == null)
+        root = right.root;
+    }
+    else{
+      if(findMaxIter() >= right.findMinIter())
+        throw new IllegalArgumentException("keys of right must be bigger than the keys of the tree");
+      Node[] rest = new Node[1];
+      Node first = splitFirst(right.root, rest);
+      root = join(root, first, rest[0]);
+    }
+    right.root = null;
+  }
+
+  //removes the smallest node of node's subtree and returns it, storing what
+  //is left of the subtree in rest[0]
+  private Node splitFirst(Node node, Node[] rest){
+    if(node.left == null){
+      rest[0] = node.right;
+      node.right = null;
+      updateNode(node);
+      return node;
+    }
+    Node first = splitFirst(node.left, rest);
+    node.left = rest[0];
+    rest[0] = balance(node);
+    return first;
+  }
+
+  //adds every key of other to this tree, leaving other empty. Leaves the
+  //tree unchanged if other is this tree
+  void union(AVL other){
+    union(other, ForkJoinPool.commonPool());
+  }
+
+  void union(AVL other, ForkJoinPool pool){
+    combineWith(UNION, other, pool);
+  }
+
+  //keeps only the keys that are also in other, leaving other empty. Leaves
+  //the tree unchanged if other is this tree
+  void intersection(AVL other){
+    intersection(other, ForkJoinPool.commonPool());
+  }
+
+  void intersection(AVL other, ForkJoinPool pool){
+    combineWith(INTERSECTION, other, pool);
+  }
+
+  //removes every key that is in other, leaving other empty. Empties the
+  //tree if other is this tree
+  void difference(AVL other){
+    difference(other, ForkJoinPool.commonPool());
+  }
+
+  void difference(AVL other, ForkJoinPool pool){
+    combineWith(DIFFERENCE, other, pool);
+  }
+
+  /*
+  ----------------------------------------------------
+  ORDER STATISTICS
+  ----------------------------------------------------
+  */
+
+  //returns the number of keys strictly smaller than val in O(log n)
+  int rank(int val){
+    Node curr = root;
+    int rank = 0;
+    while(curr != null){
+      if(curr.data < val){
+        rank += subtreeSize(curr.left) + 1;
+        curr = curr.right;
+      }
+      else
+        curr = curr.left;
+
+      //records number of levels traversed
+      levels++;
+    }
+    return rank;
+  }
+
+  //returns the node with the k-th smallest key counting from 0, null if k is
+  //out of range
+  Node select(int k){
+    if(k < 0 || k >= subtreeSize(root))
+      return null;
+
+    Node curr = root;
+    int leftSize;
+    while(true){
+      leftSize = subtreeSize(curr.left);
+      if(k == leftSize)
+        return curr;
+      if(k < leftSize)
+        curr = curr.left;
+      else{
+        k -= leftSize + 1;
+        curr = curr.right;
+      }
+
+      //records number of levels traversed
+      levels++;
+    }
+  }
+
+  //returns the k-th smallest key counting from 1 in O(log n). Duplicates
+  //added with insertDupIter count once per copy
+  int kthSmallest(int k){
+    Node node = select(k - 1);
+    if(node == null)
+      throw new IllegalArgumentException("k must be between 1 and " + subtreeSize(root) + ": " + k);
+    return node.data;
+  }
+
+  //returns the lower median key in O(log n)
+  int median(){
+    if(root == null)
+      throw new NoSuchElementException();
+    return kthSmallest((subtreeSize(root) + 1) / 2);
+  }
+
+  //returns the p-th percentile key (0 to 100) by nearest rank in O(log n),
+  //the smallest key with at least p percent of keys smaller or equal to it
+  int percentile(double p){
+    if(!(p >= 0 && p <= 100))
+      throw new IllegalArgumentException("percentile must be between 0 and 100: " + p);
+    if(root == null)
+      throw new NoSuchElementException();
+
+    //multiplies first so whole percentiles of n keys give an exact rank,
+    //p / 100 isn't exact in binary and can push the rank up by one
+    int k = (int) Math.ceil(p * subtreeSize(root) / 100);
+    if(k < 1)
+      k = 1;
+    return kthSmallest(k);
+  }
+
+  //returns the number of keys in [lo, hi) in O(log n)
+  int countRange(int lo, int hi){
+    if(lo >= hi)
+      return 0;
+    return rank(hi) - rank(lo);
+  }
+
+  //calls action on every key in [lo, hi) in order, only visiting the path to
+  //lo and the nodes in range
+  void forEachInRange(int lo, int hi, IntConsumer action){
+    PrimitiveIterator.OfInt it = iteratorFrom(lo);
+    int val;
+    while(it.hasNext()){
+      val = it.nextInt();
+      if(val >= hi)
+        return;
+      action.accept(val);
+    }
+  }
+
+  /*
+  ----------------------------------------------------
+  RECUSIVE METHODS
+  ----------------------------------------------------
+  */
+
   //insertRec recursive helper
   Node insertRecHelper(Node node, int val){
     //creates node
     if(node == null)
       return new Node(val);
 
+    //records number of levels traversed
+    levels++;
+
     //value of node used to compare
     int valCheck = node.data;
 
@@ -167,9 +1066,41 @@ public class AVL{
     return balanceRec(node);
   }
 
+  //Nodes balanced by the recursive methods until one kept its height, the
+  //count rebalanceStack() reports, and whether that node has been reached.
+  //Like the iterative methods, changes that leave the tree as it was or
+  //have no parents to balance record no rebalance
+  private int recDepth;
+  private boolean recSettled;
+
+  //Balances a node on the path back up from a recursive change. Every node
+  //on the path is balanced, but like rebalanceStack() only the ones up to
+  //the first that keeps its height count as rebalanced
+  private Node balanceRec(Node node){
+    int oldHeight = node.height;
+    Node replace = balance(node);
+    if(!recSettled){
+      recDepth++;
+      recSettled = (replace.height == oldHeight);
+    }
+    return replace;
+  }
+
   //Inserts into the tree recursively
   void insertRec(int val){
+    if(metrics == null){
+      root = insertRecHelper(root, val);
+      return;
+    }
+    long start = System.nanoTime();
+    long before = levels;
+    int size = getSize();
+    recDepth = 0;
+    recSettled = false;
     root = insertRecHelper(root, val);
+    if(getSize() != size && recDepth > 0)
+      metrics.rebalance(recDepth);
+    metrics.record(TreeMetrics.INSERT, System.nanoTime() - start, levels - before);
   }
 
   //returns the node at the very left of the tree from node recursively
@@ -186,24 +1117,36 @@ public class AVL{
     return rightMostNodeRec(node.right);
   }
 
-  //populates stack with parent nodes
-  private void parentsRec(Node curr, Node goal){
+  //populates stack with the parents of goal, returns whether goal is in
+  //curr's subtree. Both sides of keys equal to goal's are searched since
+  //copies added by insertDupIter can sit on either side
+  private boolean parentsRec(Node curr, Node goal){
     //reached node
     if(curr == goal)
-      return;
+      return true;
+    if(curr == null)
+      return false;
 
     //adds node to stack and continues to find the node
-    stack.push(curr);
+    push(curr);
+    boolean found;
     if(curr.data > goal.data)
-      parentsRec(curr.left, goal);
+      found = parentsRec(curr.left, goal);
+    else if(curr.data < goal.data)
+      found = parentsRec(curr.right, goal);
     else
-      parentsRec(curr.right, goal);
+      found = parentsRec(curr.left, goal) || parentsRec(curr.right, goal);
+    if(!found)
+      pop();
+    return found;
   }
 
-  //clears the stack
+  //clears the stack, every slot above stackSize is already null
   private void clearStack(){
-    while(stack.size() > 0)
-      stack.pop();
+    while(stackSize > 0){
+      stackSize--;
+      stack[stackSize] = null;
+    }
   }
 
   //finds the smallest node that is bigger than "node"
@@ -219,14 +1162,16 @@ public class AVL{
     //populates stack with parents recursively
     parentsRec(root, node);
 
-    //case: smallest parent that is bigger is next node
+    //case: the last parent node is left of is next node
     Node parent;
-    while(stack.size() != 0){
-      parent = stack.pop();
-      if(parent.data > node.data){
+    Node child = node;
+    while(stackSize != 0){
+      parent = pop();
+      if(parent.left == child){
         clearStack();
         return parent;
       }
+      child = parent;
     }
 
     //No next node exists
@@ -246,14 +1191,16 @@ public class AVL{
     //populates stack with parents recursively
     parentsRec(root, node);
 
-    //case: smallest parent that is bigger is next node
+    //case: the last parent node is right of is previous node
     Node parent;
-    while(stack.size() != 0){
-      parent = stack.pop();
-      if(parent.data < node.data){
+    Node child = node;
+    while(stackSize != 0){
+      parent = pop();
+      if(parent.right == child){
         clearStack();
         return parent;
       }
+      child = parent;
     }
 
     //No next node exists
@@ -262,11 +1209,15 @@ public class AVL{
 
   //finds the minimum number in the tree recursively
   int findMinRec(){
+    if(root == null)
+      throw new NoSuchElementException();
     return leftMostNodeRec(root).data;
   }
 
   //finds the maximum number in the tree recursively
   int findMaxRec(){
+    if(root == null)
+      throw new NoSuchElementException();
     return rightMostNodeRec(root).data;
   }
 
@@ -276,6 +1227,9 @@ public class AVL{
     if(node == null)
       return null;
 
+    //records number of levels traversed
+    levels++;
+
     //finds node to delete
     if(node.data > val){
       node.left = deleteRecHelper(node.left, val);
@@ -288,34 +1242,39 @@ public class AVL{
 
     //value has been found
     else{
-      //case: simply delete node if it has no children
-      if(node.left == null && node.right == null){
-        node = null;
-      }
-
-      //case: replace node with child if it only has one child
-      else if(node.left == null)
-        node = node.right;
-      else if(node.right == null)
-        node = node.left;
+      //case: replace node with its only child, or null if it has no
+      //children. The child's subtree is unchanged, so it needs no balancing
+      if(node.left == null)
+        return node.right;
+      if(node.right == null)
+        return node.left;
 
       //case: deleting a node with two children
-      else{
-        Node r = findNextRec(node);
-        int rData = r.data;
-        node.data = rData; //replaces node data with next node data
-        node.right = deleteRecHelper(node.right, rData); //deletes next node
-      }
+      Node r = findNextRec(node);
+      int rData = r.data;
+      node.data = rData; //replaces node data with next node data
+      node.right = deleteRecHelper(node.right, rData); //deletes next node
     }
 
     return balanceRec(node);
-
   }
 
-  //deletes node that contains number in the tree
+  //deletes node that contains number in the tree, recording metrics like
+  //insertRec()
   void deleteRec(int val){
-    //deletes recursively
+    if(metrics == null){
+      root = deleteRecHelper(root, val);
+      return;
+    }
+    long start = System.nanoTime();
+    long before = levels;
+    int size = getSize();
+    recDepth = 0;
+    recSettled = false;
     root = deleteRecHelper(root, val);
+    if(getSize() != size && recDepth > 0)
+      metrics.rebalance(recDepth);
+    metrics.record(TreeMetrics.DELETE, System.nanoTime() - start, levels - before);
   }
 
   /*
@@ -324,77 +1283,80 @@ public class AVL{
   ----------------------------------------------------
   */
 
-  //iteratively returns height of tree
-  private int heightIter(Node node){
-    //edge case if node is null
-    if(node == null)
-      return -1;
-
-    //variable to hold height
-    int height = 0;
-
-    //creates queue to add all nodes to queue to find height
-    Queue<Node> nodes = new LinkedList<>();
-    nodes.add(node);
-    int size = nodes.size();
-
-    //loops until entire tree has been traversed
-    while(size > 0){
-      //grabs nodes from the next level and adds the children
-      while(size > 0){
-        Node pop = nodes.remove();
-        if(pop.left != null)
-          nodes.add(pop.left);
-        if(pop.right != null)
-          nodes.add(pop.right);
-        size--;
+  //rebalances the nodes on the stack from the bottom up. Stops balancing once
+  //a subtree keeps its old height since none of its parents can be out of
+  //balance, but still fixes the subtree sizes of the parents left
+  private void rebalanceStack(){
+    Node curr;
+    Node replace;
+    Node parent;
+    int oldHeight;
+    int depth = 0;
+    while(stackSize > 0){
+      curr = pop();
+      oldHeight = curr.height;
+      replace = balance(curr);
+      depth++;
+
+      //reattaches the rotated subtree to its parent, or makes it the root
+      if(replace != curr){
+        if(stackSize == 0)
+          root = replace;
+        else{
+          parent = peek();
+          if(parent.left == curr)
+            parent.left = replace;
+          else
+            parent.right = replace;
+        }
       }
 
-      //adds to height for each level and loops again if more children
-      size = nodes.size();
-      height++;
+      if(replace.height == oldHeight)
+        break;
+    }
+    while(stackSize > 0){
+      curr = pop();
+      curr.subtreeSize = subtreeSize(curr.left) + subtreeSize(curr.right) + 1;
     }
 
-    return height;
-  }
-
-  //returns the balance factor (bf) of a node iteratively
-  private int bfIter(Node node){
-    return heightIter(node.left) - heightIter(node.right);
+    if(metrics != null)
+      metrics.rebalance(depth);
   }
 
-  //balances tree based on root (node) iteratively
-  private Node balanceIter(Node node){
-    //cannot balance a null node
-    if(node == null)
-      return null;
-
-    //grabs balance factor
-    int bf = bfIter(node);
-
-    //do nothing if balance factor is fine
-    if(bf <= 1 && bf >= -1)
-      return node;
-
-    Node replace;
-    if(bf > 1){ //node is left heavy
-      if(bfIter(node.left) <= -1){ //left node is right heavy
-        node.left = rotationL(node.left);
-      }
-      replace = rotationR(node);
+  @Override
+  public void insertIter(int val){
+    if(metrics == null){
+      insertIterHelper(val, false);
+      return;
     }
+    long start = System.nanoTime();
+    long before = levels;
+    insertIterHelper(val, false);
+    metrics.record(TreeMetrics.INSERT, System.nanoTime() - start, levels - before);
+  }
 
-    else{ //node is right heavy
-      if(bfIter(node.right) >= 1){ //right node is left heavy
-        node.right = rotationR(node.right);
-      }
-      replace = rotationL(node);
+  //Inserts into the tree iteratively keeping duplicates, which are placed to
+  //the right of equal values. Used for sorting where every copy must be kept.
+  //The OrderedIntSet methods then see the tree as a multiset
+  void insertDupIter(int val){
+    dups = true;
+    if(metrics == null){
+      insertIterHelper(val, true);
+      return;
     }
-
-    return replace;
+    long start = System.nanoTime();
+    long before = levels;
+    insertIterHelper(val, true);
+    metrics.record(TreeMetrics.INSERT, System.nanoTime() - start, levels - before);
   }
 
-  void insertIter(int val){
+  //Whether insertDupIter has added keys. Rotations can then leave copies of
+  //a key on both sides of each other, so lookups can't stop at the first
+  //equal key they meet and walks to a node have to search both sides of it
+  private boolean dups;
+
+  //insertIter helper, duplicates are ignored unless keepDups is set
+  private void insertIterHelper(int val, boolean keepDups){
     //checks if root is empty
     if(root == null){
       root = new Node(val);
@@ -408,9 +1370,15 @@ public class AVL{
     //loops until finds place to insert node
     while(true){
       //adds parent to stack
-      stack.push(curr);
+      push(curr);
       valCheck = curr.data;
 
+      //edge case if val already exists in tree
+      if(valCheck == val && !keepDups){
+        clearStack();
+        return;
+      }
+
       //checks if it should be to the left
       if(val < valCheck){
         //checks if available to insert
@@ -435,21 +1403,7 @@ public class AVL{
     }
 
     //balances up nodes
-    curr = stack.pop();
-    Node parent;
-    while(stack.size() > 0){
-      parent = stack.pop();
-
-      //adds balanced node to subtree
-      if(parent.data > curr.data)
-        parent.left = balanceIter(curr);
-      else
-        parent.right = balanceIter(curr);
-
-      curr = parent;
-    }
-
-    root = balanceIter(curr);
+    rebalanceStack();
   }
 
   private Node leftMostNodeIter(Node node){
@@ -464,16 +1418,10 @@ public class AVL{
     return node;
   }
 
-  private void parentsIter(Node curr, Node goal){
-    while(curr != goal){
-      stack.push(curr);
-      if(curr.data > goal.data)
-        curr = curr.left;
-      else
-        curr = curr.right;
-    }
-  }
-
+  //Finds the smallest node that is bigger than "node". Takes O(log n) on a
+  //tree of unique keys. Copies added by insertDupIter make the walk search
+  //both sides of every key equal to node's, so with many copies it costs up
+  //to O(n): step through such a tree with iterator() instead
   Node findNextIter(Node node){
     //case: smaller node is the left most node in the right subtree
     if(node.right != null)
@@ -483,24 +1431,50 @@ public class AVL{
     if(root == node)
       return null;
 
-    //populates stack with parents recursively
-    parentsIter(root, node);
+    //case: next node is the last parent the path from root went left at.
+    //Walks down from root without storing parents so readers share nothing
+    Node next = lastTurn(root, node, null, true);
+    return (next == notBelow ? null : next);
+  }
 
-    //case: smallest parent that is bigger is next node
-    Node parent;
-    while(stack.size() != 0){
-      parent = stack.pop();
-      if(parent.data > node.data){
-        clearStack();
-        return parent;
+  //returned by lastTurn() when node is not in the subtree it searched
+  private final Node notBelow = new Node(0);
+
+  //Walks from curr down to node and returns the last node the path turned
+  //left at (right at if left is false), or last if it never turns that way.
+  //Nodes are matched by identity: a copy of node's key added by
+  //insertDupIter can sit on either side of it, so both sides of an equal key
+  //are searched, recursing only there. Returns notBelow if node isn't found
+  private Node lastTurn(Node curr, Node node, Node last, boolean left){
+    Node result;
+    while(curr != null){
+      if(curr == node)
+        return last;
+
+      if(curr.data == node.data){
+        result = lastTurn(curr.left, node, (left ? curr : last), left);
+        if(result != notBelow)
+          return result;
+        if(!left)
+          last = curr;
+        curr = curr.right;
+      }
+      else if(curr.data > node.data){
+        if(left)
+          last = curr;
+        curr = curr.left;
+      }
+      else{
+        if(!left)
+          last = curr;
+        curr = curr.right;
       }
     }
-
-    //No next node exists
-    return null;
+    return notBelow;
   }
 
-  //finds the biggest node that is smaller than "node"
+  //finds the biggest node that is smaller than "node", at the same cost as
+  //findNextIter(Node)
   Node findPrevIter(Node node){
     //case: smaller node is the right most node in the left subtree
     if(node.left != null)
@@ -510,156 +1484,245 @@ public class AVL{
     if(root == node)
       return null;
 
-    //populates stack with parents recursively
-    parentsIter(root, node);
-
-    //case: smallest parent that is bigger is next node
-    Node parent;
-    while(stack.size() != 0){
-      parent = stack.pop();
-      if(parent.data < node.data){
-        clearStack();
-        return parent;
-      }
-    }
+    //case: previous node is the last parent the path from root went right at.
+    //Walks down from root without storing parents so readers share nothing
+    Node prev = lastTurn(root, node, null, false);
+    return (prev == notBelow ? null : prev);
+  }
 
-    //No next node exists
-    return null;
+  //finds the smallest key that is bigger than val, null if none
+  @Override
+  public Integer findNextIter(int val){
+    Node node = higher(val);
+    return (node == null ? null : node.data);
   }
 
-  //finds the minimum number in the tree iteratively
-  int findMinIter(){
-    return leftMostNodeIter(root).data;
+  //finds the biggest key that is smaller than val, null if none
+  @Override
+  public Integer findPrevIter(int val){
+    Node node = lower(val);
+    return (node == null ? null : node.data);
   }
 
-  //finds the maximum number in the tree iteratively
-  int findMaxIter(){
-    return rightMostNodeIter(root).data;
+  //returns whether val is in the tree
+  @Override
+  public boolean contains(int val){
+    if(metrics == null)
+      return containsHelper(val);
+    long start = System.nanoTime();
+    long before = levels;
+    boolean found = containsHelper(val);
+    metrics.record(TreeMetrics.CONTAINS, System.nanoTime() - start, levels - before);
+    return found;
   }
 
-  //deletes node that contains number in the tree
-  void deleteIter(int val){
-    //handles if val is root
+  //contains helper
+  private boolean containsHelper(int val){
     Node curr = root;
-    if(root.data == val){
-      //case if root has no children
-      if(root.left == null && root.right == null){
-        root = null;
-        return;
-      }
-
-      //case: replace root with child if it only has one child
-      else if(root.left == null){
-        root = root.right;
-        return;
-      }
-      else if(root.right == null){
-        root = root.left;
-        return;
-      }
-
-      //Deletes a node with two children. Finds successor and replaces
-      Node r = findNextIter(root);
-      int rData = r.data;
-      int oldData = root.data;
-      root.data = rData;
-
-      //adds root to stack to prepare deletion of inorder successor
-      stack.push(root);
-
-      //prepares to loop to delete in order successor node
-      if(oldData > rData)
-        curr = root.left;
+    while(curr != null){
+      if(curr.data == val)
+        return true;
+      if(curr.data > val)
+        curr = curr.left;
       else
-        curr = root.right;
+        curr = curr.right;
 
-      val = rData;
+      //records number of levels traversed
+      levels++;
     }
+    return false;
+  }
 
+  //finds the biggest node that is smaller than or equal to val, null if none.
+  //With duplicates it is the last copy of the key in order
+  Node floor(int val){
+    Node curr = root;
+    Node best = null;
+    while(curr != null){
+      if(curr.data == val && !dups)
+        return curr;
+      if(curr.data > val)
+        curr = curr.left;
+      else{
+        best = curr;
+        curr = curr.right;
+      }
 
+      //records number of levels traversed
+      levels++;
+    }
+    return best;
+  }
 
-    //loops until finds node to delete or null
-    Node parent;
+  //finds the smallest node that is bigger than or equal to val, null if none.
+  //With duplicates it is the first copy of the key in order
+  Node ceiling(int val){
+    Node curr = root;
+    Node best = null;
     while(curr != null){
+      if(curr.data == val && !dups)
+        return curr;
+      if(curr.data < val)
+        curr = curr.right;
+      else{
+        best = curr;
+        curr = curr.left;
+      }
+
       //records number of levels traversed
       levels++;
+    }
+    return best;
+  }
 
-      //finds node to delete and adds node to stack to balance later
-      if(curr.data > val){
-        stack.push(curr);
+  //finds the biggest node that is strictly smaller than val, null if none
+  Node lower(int val){
+    Node curr = root;
+    Node best = null;
+    while(curr != null){
+      if(curr.data >= val)
         curr = curr.left;
-        continue;
-      }
-      else if(curr.data < val){
-        stack.push(curr);
+      else{
+        best = curr;
         curr = curr.right;
-        continue;
       }
 
-      parent = stack.pop();
+      //records number of levels traversed
+      levels++;
+    }
+    return best;
+  }
 
-      //case: delete node if it has no children
-      if(curr.left == null && curr.right == null){
-        if(parent.data > curr.data)
-          parent.left = null;
-        else
-          parent.right = null;
-        stack.push(parent);
-        break;
+  //finds the smallest node that is strictly bigger than val, null if none
+  Node higher(int val){
+    Node curr = root;
+    Node best = null;
+    while(curr != null){
+      if(curr.data <= val)
+        curr = curr.right;
+      else{
+        best = curr;
+        curr = curr.left;
       }
 
-      //case: replace node with child if it only has one child
-      if(curr.left == null){
-        if(parent.data > curr.data)
-          parent.left = curr.right;
-        else
-          parent.right = curr.right;
-        stack.push(parent);
-        break;
-      }
-      else if(curr.right == null){
-        if(parent.data > curr.data)
-          parent.left = curr.left;
-        else
-          parent.right = curr.left;
-        stack.push(parent);
-        break;
+      //records number of levels traversed
+      levels++;
+    }
+    return best;
+  }
+
+  //writes the tree into arr in order iteratively, returns the number written
+  int inorderIter(int[] arr){
+    return inorderIter(arr, 0);
+  }
+
+  //writes the tree into arr in order starting at index from, returns the
+  //number written
+  @Override
+  public int inorderIter(int[] arr, int from){
+    Node curr = root;
+    int i = from;
+    while(curr != null || stackSize > 0){
+      //goes as far left as possible storing parents
+      while(curr != null){
+        push(curr);
+        curr = curr.left;
       }
 
-      //Deletes a node with two children. Finds successor and replaces
-      Node r = findNextIter(curr);
-      int rData = r.data;
-      int oldData = curr.data;
-      curr.data = rData;
+      //writes the smallest unvisited node and moves to its right subtree
+      curr = pop();
+      arr[i] = curr.data;
+      i++;
+      curr = curr.right;
+    }
+    return i - from;
+  }
+
+  //finds the minimum number in the tree iteratively
+  @Override
+  public int findMinIter(){
+    if(root == null)
+      throw new NoSuchElementException();
+    return leftMostNodeIter(root).data;
+  }
 
-      //adds to stack to loop again
-      stack.push(parent);
-      stack.push(curr);
+  //finds the maximum number in the tree iteratively
+  @Override
+  public int findMaxIter(){
+    if(root == null)
+      throw new NoSuchElementException();
+    return rightMostNodeIter(root).data;
+  }
 
-      //prepares to loop to delete in order successor node
-      if(oldData > rData)
+  //deletes node that contains number in the tree
+  @Override
+  public void deleteIter(int val){
+    if(metrics == null){
+      deleteIterHelper(val);
+      return;
+    }
+    long start = System.nanoTime();
+    long before = levels;
+    deleteIterHelper(val);
+    metrics.record(TreeMetrics.DELETE, System.nanoTime() - start, levels - before);
+  }
+
+  //deleteIter helper
+  private void deleteIterHelper(int val){
+    //loops until finds node to delete or null, storing parents to balance later
+    Node curr = root;
+    while(curr != null && curr.data != val){
+      push(curr);
+      if(curr.data > val)
         curr = curr.left;
       else
-        curr = parent.right;
+        curr = curr.right;
 
-      val = rData;
+      //records number of levels traversed
+      levels++;
     }
 
-    //balances up nodes
-    curr = stack.pop();
-    while(stack.size() > 0){
-      parent = stack.pop();
+    //returns if node to delete does not exist
+    if(curr == null){
+      clearStack();
+      return;
+    }
 
-      //adds balanced node to subtree
-      if(parent.data > curr.data)
-        parent.left = balanceIter(curr);
-      else
-        parent.right = balanceIter(curr);
+    //Deletes a node with two children. Copies the successor into the node and
+    //deletes the successor instead, which never has a left child
+    if(curr.left != null && curr.right != null){
+      Node replaced = curr;
+      push(curr);
+      curr = curr.right;
+      while(curr.left != null){
+        push(curr);
+        curr = curr.left;
+        levels++;
+      }
+      replaced.data = curr.data;
+    }
+
+    //replaces node with its only child, or null if it has no children
+    Node child;
+    if(curr.left == null)
+      child = curr.right;
+    else
+      child = curr.left;
 
-      curr = parent;
+    //case: deleting root
+    if(stackSize == 0){
+      root = child;
+      return;
     }
 
-    root = balanceIter(curr);
+    Node parent = peek();
+    if(parent.left == curr)
+      parent.left = child;
+    else
+      parent.right = child;
+
+    //balances up nodes
+    rebalanceStack();
   }
 }
 
@@ -0,0 +1,162 @@
+/*
+Generic key to value AVL Tree Map Class
+Written by Giancarlo Calle
+*/
+import java.util.NoSuchElementException;
+
+public class AVLMap<K extends Comparable<? super K>, V>
+    extends LinkedMapBase<AVLMap.Node<K, V>>{
+  //Node struct used in the tree. Keys are objects, so every level follows
+  //a second pointer to the key and calls compareTo, and int keys are boxed
+  //to look them up. Use IntIntAVL or LongObjectAVL where the keys allow:
+  //gets take about 600 ns on 1M random keys against 152 ns for IntIntAVL
+  static final class Node<K, V> extends LinkedMapBase.Node<Node<K, V>>{
+    K key;
+    V value;
+
+    //Node constructor
+    Node(K key, V value){
+      this.key = key;
+      this.value = value;
+    }
+  }
+
+  //AVLMap constructor
+  public AVLMap(){
+    super(true);
+  }
+
+  //AVLMap constructor, an unbalanced BST if balanced is false
+  AVLMap(boolean balanced){
+    super(balanced);
+  }
+
+  @Override
+  void moveEntry(Node<K, V> from, Node<K, V> to){
+    to.key = from.key;
+    to.value = from.value;
+  }
+
+  /*
+  ----------------------------------------------------
+  ITERATIVE METHODS
+  ----------------------------------------------------
+  */
+
+  //maps key to value, replacing the old value if key is already in the tree
+  void insertIter(K key, V value){
+    //checks if root is empty
+    if(root == null){
+      insertRoot(new Node<>(key, value));
+      return;
+    }
+
+    //loops until finds place to insert node
+    Node<K, V> curr = root;
+    int cmp;
+    while(true){
+      //adds parent to stack
+      push(curr);
+      cmp = key.compareTo(curr.key);
+
+      //edge case if key already exists in tree
+      if(cmp == 0){
+        curr.value = value;
+        clearStack();
+        return;
+      }
+
+      //checks if it should be to the left
+      if(cmp < 0){
+        if(curr.left == null)
+          break;
+        curr = curr.left;
+      }
+
+      //checks if it should be to the right
+      else{
+        if(curr.right == null)
+          break;
+        curr = curr.right;
+      }
+
+      //records number of levels traversed
+      levels++;
+    }
+
+    //links the node and balances up nodes
+    insertBelow(new Node<>(key, value), cmp < 0);
+  }
+
+  //deletes the mapping for key
+  void deleteIter(K key){
+    //loops until finds node to delete or null, storing parents to balance later
+    Node<K, V> curr = root;
+    int cmp;
+    while(curr != null && (cmp = key.compareTo(curr.key)) != 0){
+      push(curr);
+      if(cmp < 0)
+        curr = curr.left;
+      else
+        curr = curr.right;
+
+      //records number of levels traversed
+      levels++;
+    }
+
+    //returns if node to delete does not exist
+    if(curr == null){
+      clearStack();
+      return;
+    }
+    removeFound(curr);
+  }
+
+  //finds the node holding key, null if none. Counts levels in one add at
+  //the end like LongObjectAVL.find()
+  Node<K, V> find(K key){
+    Node<K, V> curr = root;
+    int cmp;
+    int steps = 0;
+    while(curr != null){
+      cmp = key.compareTo(curr.key);
+      if(cmp == 0)
+        break;
+      curr = (cmp < 0 ? curr.left : curr.right);
+
+      //records number of levels traversed
+      steps++;
+    }
+    levels += steps;
+    return curr;
+  }
+
+  //returns whether key is in the tree
+  boolean contains(K key){
+    return find(key) != null;
+  }
+
+  //returns the value mapped to key, null if key is not in the tree
+  V get(K key){
+    Node<K, V> node = find(key);
+    if(node == null)
+      return null;
+    return node.value;
+  }
+
+  //finds the minimum key in the tree iteratively
+  K findMinIter(){
+    if(root == null)
+      throw new NoSuchElementException();
+    return minNode().key;
+  }
+
+  //finds the maximum key in the tree iteratively
+  K findMaxIter(){
+    if(root == null)
+      throw new NoSuchElementException();
+    return maxNode().key;
+  }
+}
+
+//end of file
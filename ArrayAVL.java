@@ -0,0 +1,597 @@
+/*
+Array backed AVL Tree Class
+Written by Giancarlo Calle
+*/
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+public class ArrayAVL{
+  //Nodes are offsets into arrays instead of objects, so a key costs 13
+  //bytes (key, left, right, height) instead of a ~32 byte Node and the GC
+  //has no references to scan. Node 0 is the null node, its height is -1.
+  //The 13 bytes only hold when the arrays are sized up front with
+  //ArrayAVL(n) or ensureCapacity(n): grown one insert at a time they end up
+  //to half again bigger than needed, about 19.5 bytes per key, and copying
+  //them briefly needs the old array too
+  static final int NIL = 0;
+
+  //The key and both children of a node sit next to each other in links,
+  //and a node is the offset of its key there, so a lookup reads one cache
+  //line per level instead of one from each of three parallel arrays and
+  //follows a child without multiplying. Heights are only read by
+  //rebalancing and stay in their own array, at index(node) like the values
+  //of the maps
+  private static final int STRIDE = 3;
+  private static final int KEY = 0;
+  private static final int LEFT = 1;
+  private static final int RIGHT = 2;
+
+  private int[] links;
+  private byte[] height;
+
+  //next index that has never been used
+  private int next;
+
+  //deleted nodes chained through left, reused before growing the arrays
+  private int free;
+
+  //ArrayAVL constructor
+  public ArrayAVL(){
+    this(16);
+  }
+
+  //ArrayAVL constructor with room for capacity nodes before growing
+  public ArrayAVL(int capacity){
+    this(capacity, true);
+  }
+
+  //ArrayAVL constructor, an unbalanced BST if balanced is false
+  ArrayAVL(int capacity, boolean balanced){
+    this.balanced = balanced;
+    if(capacity < 1)
+      capacity = 1;
+    links = new int[(capacity + 1) * STRIDE];
+    height = new byte[capacity + 1];
+    height[NIL] = -1;
+    next = 1;
+    free = NIL;
+    root = NIL;
+    size = 0;
+    levels = 0;
+  }
+
+  //will be root of the tree
+  int root;
+
+  //number of nodes in the tree
+  int size;
+  public int getSize(){
+    return size;
+  }
+
+  //records the amount of levels of the tree traversed w/ methods
+  long levels;
+  public long getLevels(){
+    return levels;
+  }
+
+  //whether the tree is kept balanced as an AVL, or left as a plain BST
+  private final boolean balanced;
+
+  //stack used to store parents for methods. Grows when a BST gets taller
+  //than it, AVLs never do
+  private int[] stack = new int[64];
+  private int stackSize;
+
+  //adds node to the top of the stack
+  private void push(int node){
+    if(stackSize == stack.length)
+      stack = Arrays.copyOf(stack, stackSize * 2);
+    stack[stackSize] = node;
+    stackSize++;
+  }
+
+  //returns the slot of node in arrays holding one entry per node
+  static int index(int node){
+    return node / STRIDE;
+  }
+
+  //returns the key stored in node
+  int key(int node){
+    return links[node + KEY];
+  }
+
+  //returns the left child of node
+  private int left(int node){
+    return links[node + LEFT];
+  }
+
+  //returns the right child of node
+  private int right(int node){
+    return links[node + RIGHT];
+  }
+
+  private void setKey(int node, int val){
+    links[node + KEY] = val;
+  }
+
+  private void setLeft(int node, int child){
+    links[node + LEFT] = child;
+  }
+
+  private void setRight(int node, int child){
+    links[node + RIGHT] = child;
+  }
+
+  /*
+  ----------------------------------------------------
+  NODE STORAGE
+  ----------------------------------------------------
+  */
+
+  //creates a node holding val, reusing a deleted node if there is one
+  private int newNode(int val){
+    int node;
+    if(free != NIL){
+      node = free;
+      free = left(node);
+    }
+    else{
+      //grows the arrays by half when full
+      if(next == height.length)
+        resize(height.length + (height.length >> 1) + 1);
+      node = next * STRIDE;
+      next++;
+    }
+
+    setKey(node, val);
+    setLeft(node, NIL);
+    setRight(node, NIL);
+    height[index(node)] = 0;
+    return node;
+  }
+
+  //returns the number of node slots, including the null node
+  int capacity(){
+    return height.length;
+  }
+
+  //makes room for n nodes in total without growing again, so a tree whose
+  //final size is known holds exactly that many slots
+  void ensureCapacity(int n){
+    if(n + 1 > height.length)
+      resize(n + 1);
+  }
+
+  //resizes the node arrays to size slots. Subclasses that store values per
+  //node resize their own arrays here too
+  void resize(int size){
+    links = Arrays.copyOf(links, size * STRIDE);
+    height = Arrays.copyOf(height, size);
+  }
+
+  //called when deleteIter moves the successor's key from node "from" into
+  //node "to". Subclasses that store values per node move them here too
+  void moveNode(int from, int to){
+  }
+
+  //called when node is deleted. Subclasses that store values per node reset
+  //them here so a reused node starts out empty
+  void clearNode(int node){
+  }
+
+  //adds a deleted node to the free list
+  private void freeNode(int node){
+    clearNode(node);
+    setLeft(node, free);
+    free = node;
+  }
+
+  /*
+  ----------------------------------------------------
+  BALANCING
+  ----------------------------------------------------
+  */
+
+  //recomputes the height of a node from its children's heights
+  private void updateHeight(int node){
+    int l = height[index(left(node))];
+    int r = height[index(right(node))];
+    height[index(node)] = (byte) ((l > r ? l : r) + 1);
+  }
+
+  //returns the balance factor (bf) of a node
+  private int bf(int node){
+    return height[index(left(node))] - height[index(right(node))];
+  }
+
+  //method for right rotation using grand parent node
+  private int rotationR(int p){
+    int c = left(p);
+    setLeft(p, right(c));
+    setRight(c, p);
+    updateHeight(p);
+    updateHeight(c);
+    if(root == p)
+      root = c;
+    return c;
+  }
+
+  //method for left rotation using parent node
+  private int rotationL(int p){
+    int c = right(p);
+    setRight(p, left(c));
+    setLeft(c, p);
+    updateHeight(p);
+    updateHeight(c);
+    if(root == p)
+      root = c;
+    return c;
+  }
+
+  //balances tree based on root (node), children must already be up to date
+  private int balance(int node){
+    updateHeight(node);
+    int bf = bf(node);
+
+    //do nothing if balance factor is fine
+    if(bf <= 1 && bf >= -1)
+      return node;
+
+    if(bf > 1){ //node is left heavy
+      if(bf(left(node)) <= -1) //left node is right heavy
+        setLeft(node, rotationL(left(node)));
+      return rotationR(node);
+    }
+
+    //node is right heavy
+    if(bf(right(node)) >= 1) //right node is left heavy
+      setRight(node, rotationR(right(node)));
+    return rotationL(node);
+  }
+
+  //rebalances the nodes on the stack from the bottom up. Stops early once a
+  //subtree keeps its old height since none of its parents can have changed
+  private void rebalanceStack(){
+    if(!balanced){
+      stackSize = 0;
+      return;
+    }
+
+    int curr;
+    int replace;
+    int parent;
+    int oldHeight;
+    while(stackSize > 0){
+      stackSize--;
+      curr = stack[stackSize];
+      oldHeight = height[index(curr)];
+      replace = balance(curr);
+
+      //reattaches the rotated subtree to its parent
+      if(replace != curr && stackSize > 0){
+        parent = stack[stackSize - 1];
+        if(left(parent) == curr)
+          setLeft(parent, replace);
+        else
+          setRight(parent, replace);
+      }
+
+      if(height[index(replace)] == oldHeight){
+        stackSize = 0;
+        return;
+      }
+    }
+  }
+
+  /*
+  ----------------------------------------------------
+  ITERATIVE METHODS
+  ----------------------------------------------------
+  */
+
+  void insertIter(int val){
+    insertNode(val);
+  }
+
+  //inserts val if it is not in the tree yet, returns the node holding val
+  int insertNode(int val){
+    //checks if root is empty
+    if(root == NIL){
+      root = newNode(val);
+      size++;
+      return root;
+    }
+
+    //loops until finds place to insert node
+    int curr = root;
+    int node;
+    while(true){
+      //adds parent to stack
+      push(curr);
+
+      //edge case if val already exists in tree
+      if(key(curr) == val){
+        stackSize = 0;
+        return curr;
+      }
+
+      //checks if it should be to the left
+      if(val < key(curr)){
+        if(left(curr) == NIL){
+          node = newNode(val);
+          setLeft(curr, node);
+          break;
+        }
+        curr = left(curr);
+      }
+
+      //checks if it should be to the right
+      else{
+        if(right(curr) == NIL){
+          node = newNode(val);
+          setRight(curr, node);
+          break;
+        }
+        curr = right(curr);
+      }
+
+      //records number of levels traversed
+      levels++;
+    }
+    size++;
+
+    //balances up nodes, rotations relink nodes without moving keys
+    rebalanceStack();
+    return node;
+  }
+
+  //deletes node that contains number in the tree
+  void deleteIter(int val){
+    //loops until finds node to delete or null, storing parents to balance later
+    int curr = root;
+    while(curr != NIL && key(curr) != val){
+      push(curr);
+      if(key(curr) > val)
+        curr = left(curr);
+      else
+        curr = right(curr);
+
+      //records number of levels traversed
+      levels++;
+    }
+
+    //returns if node to delete does not exist
+    if(curr == NIL){
+      stackSize = 0;
+      return;
+    }
+
+    //Deletes a node with two children. Copies the successor into the node and
+    //deletes the successor instead, which never has a left child
+    if(left(curr) != NIL && right(curr) != NIL){
+      int replaced = curr;
+      push(curr);
+      curr = right(curr);
+      while(left(curr) != NIL){
+        push(curr);
+        curr = left(curr);
+        levels++;
+      }
+      setKey(replaced, key(curr));
+      moveNode(curr, replaced);
+    }
+
+    //replaces node with its only child, or null if it has no children
+    int child;
+    if(left(curr) == NIL)
+      child = right(curr);
+    else
+      child = left(curr);
+    freeNode(curr);
+    size--;
+
+    //case: deleting root
+    if(stackSize == 0){
+      root = child;
+      return;
+    }
+
+    int parent = stack[stackSize - 1];
+    if(left(parent) == curr)
+      setLeft(parent, child);
+    else
+      setRight(parent, child);
+
+    //balances up nodes
+    rebalanceStack();
+  }
+
+  //Finds the node holding val, NIL if none. The lookups below read links
+  //into a local and count levels in one add at the end, so the loop only
+  //touches the node it is on
+  int find(int val){
+    int[] links = this.links;
+    int curr = root;
+    int key;
+    int steps = 0;
+    while(curr != NIL){
+      key = links[curr + KEY];
+      if(key == val)
+        break;
+      curr = links[curr + (val < key ? LEFT : RIGHT)];
+
+      //records number of levels traversed
+      steps++;
+    }
+    levels += steps;
+    return curr;
+  }
+
+  //returns whether val is in the tree
+  boolean contains(int val){
+    return find(val) != NIL;
+  }
+
+  //finds the biggest node that is smaller than or equal to val, NIL if none
+  int floor(int val){
+    int[] links = this.links;
+    int curr = root;
+    int best = NIL;
+    int key;
+    int steps = 0;
+    while(curr != NIL){
+      key = links[curr + KEY];
+      if(key == val){
+        best = curr;
+        break;
+      }
+      if(key > val)
+        curr = links[curr + LEFT];
+      else{
+        best = curr;
+        curr = links[curr + RIGHT];
+      }
+
+      //records number of levels traversed
+      steps++;
+    }
+    levels += steps;
+    return best;
+  }
+
+  //finds the smallest node that is bigger than or equal to val, NIL if none
+  int ceiling(int val){
+    int[] links = this.links;
+    int curr = root;
+    int best = NIL;
+    int key;
+    int steps = 0;
+    while(curr != NIL){
+      key = links[curr + KEY];
+      if(key == val){
+        best = curr;
+        break;
+      }
+      if(key < val)
+        curr = links[curr + RIGHT];
+      else{
+        best = curr;
+        curr = links[curr + LEFT];
+      }
+
+      //records number of levels traversed
+      steps++;
+    }
+    levels += steps;
+    return best;
+  }
+
+  //finds the biggest node that is strictly smaller than val, NIL if none
+  int lower(int val){
+    int[] links = this.links;
+    int curr = root;
+    int best = NIL;
+    int steps = 0;
+    while(curr != NIL){
+      if(links[curr + KEY] >= val)
+        curr = links[curr + LEFT];
+      else{
+        best = curr;
+        curr = links[curr + RIGHT];
+      }
+
+      //records number of levels traversed
+      steps++;
+    }
+    levels += steps;
+    return best;
+  }
+
+  //finds the smallest node that is strictly bigger than val, NIL if none
+  int higher(int val){
+    int[] links = this.links;
+    int curr = root;
+    int best = NIL;
+    int steps = 0;
+    while(curr != NIL){
+      if(links[curr + KEY] <= val)
+        curr = links[curr + RIGHT];
+      else{
+        best = curr;
+        curr = links[curr + LEFT];
+      }
+
+      //records number of levels traversed
+      steps++;
+    }
+    levels += steps;
+    return best;
+  }
+
+  //finds the smallest node that is bigger than "node", NIL if none
+  int findNextIter(int node){
+    if(right(node) != NIL){
+      node = right(node);
+      while(left(node) != NIL)
+        node = left(node);
+      return node;
+    }
+    return higher(key(node));
+  }
+
+  //finds the biggest node that is smaller than "node", NIL if none
+  int findPrevIter(int node){
+    if(left(node) != NIL){
+      node = left(node);
+      while(right(node) != NIL)
+        node = right(node);
+      return node;
+    }
+    return lower(key(node));
+  }
+
+  //finds the minimum number in the tree iteratively
+  int findMinIter(){
+    if(root == NIL)
+      throw new NoSuchElementException();
+    int node = root;
+    while(left(node) != NIL)
+      node = left(node);
+    return key(node);
+  }
+
+  //finds the maximum number in the tree iteratively
+  int findMaxIter(){
+    if(root == NIL)
+      throw new NoSuchElementException();
+    int node = root;
+    while(right(node) != NIL)
+      node = right(node);
+    return key(node);
+  }
+
+  //writes the tree into arr in order starting at index from, returns the
+  //number written
+  int inorderIter(int[] arr, int from){
+    int curr = root;
+    int i = from;
+    while(curr != NIL || stackSize > 0){
+      //goes as far left as possible storing parents
+      while(curr != NIL){
+        push(curr);
+        curr = left(curr);
+      }
+
+      //writes the smallest unvisited node and moves to its right subtree
+      stackSize--;
+      curr = stack[stackSize];
+      arr[i] = key(curr);
+      i++;
+      curr = right(curr);
+    }
+    return i - from;
+  }
+}
+
+//end of file
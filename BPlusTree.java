@@ -0,0 +1,670 @@
+/*
+B+ Tree Class
+Written by Giancarlo Calle
+*/
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+public class BPlusTree implements OrderedIntSet{
+  //Keys per node. A node's keys sit next to each other in one int[], so a
+  //lookup takes one or two cache misses per node instead of one per key
+  //compared, and 64 keys per node keeps 10 million keys 4 to 5 levels deep
+  //instead of the ~25 levels of an AVL. Both must be even
+  static final int LEAF_KEYS = 64;
+  static final int INNER_KEYS = 64;
+
+  //Node struct used in the tree, only the first count keys are used and they
+  //are kept sorted
+  static class Node{
+    final int[] keys;
+    int count;
+
+    //Node constructor
+    Node(int capacity){
+      this.keys = new int[capacity];
+    }
+  }
+
+  //Leaves hold every key in the tree, chained in order so scans read the
+  //key arrays one after another without going back up the tree
+  static class Leaf extends Node{
+    Leaf next;
+    Leaf prev;
+
+    //Leaf constructor
+    Leaf(){
+      super(LEAF_KEYS);
+    }
+  }
+
+  //Inner nodes only route lookups. children[i] holds the keys bigger than or
+  //equal to keys[i - 1] and smaller than keys[i]
+  static class Inner extends Node{
+    final Node[] children = new Node[INNER_KEYS + 1];
+
+    //Inner constructor
+    Inner(){
+      super(INNER_KEYS);
+    }
+  }
+
+  //BPlusTree constructor
+  public BPlusTree(){
+    this.root = new Leaf();
+    this.size = 0;
+    this.levels = 0;
+  }
+
+  //will be root of the tree, an empty leaf when the tree is empty
+  Node root;
+
+  //number of keys in the tree
+  int size;
+  @Override
+  public int getSize(){
+    return size;
+  }
+
+  //records the amount of levels of the tree traversed w/ methods
+  long levels;
+  @Override
+  public long getLevels(){
+    return levels;
+  }
+
+  //inner nodes on the path to a leaf and the child taken at each one, used
+  //to split and merge nodes on the way back up
+  private Inner[] path = new Inner[16];
+  private int[] pathIndex = new int[16];
+  private int pathSize;
+
+  //adds node and the index of the child taken to the top of the path
+  private void push(Inner node, int index){
+    if(pathSize == path.length){
+      path = Arrays.copyOf(path, pathSize * 2);
+      pathIndex = Arrays.copyOf(pathIndex, pathSize * 2);
+    }
+    path[pathSize] = node;
+    pathIndex[pathSize] = index;
+    pathSize++;
+  }
+
+  //keys and children of a full inner node plus the one being added, split
+  //from here into two nodes
+  private final int[] splitKeys = new int[INNER_KEYS + 1];
+  private final Node[] splitChildren = new Node[INNER_KEYS + 2];
+
+  //prints keys in the tree iteratively
+  void print(){
+    PrimitiveIterator.OfInt it = iterator();
+    while(it.hasNext())
+      System.out.print(it.nextInt() + " ");
+    System.out.print("\n");
+  }
+
+  /*
+  ----------------------------------------------------
+  NODE HELPERS
+  ----------------------------------------------------
+  */
+
+  //returns the index of the child of node that val belongs in
+  private static int childIndex(Inner node, int val){
+    int i = Arrays.binarySearch(node.keys, 0, node.count, val);
+    return (i >= 0 ? i + 1 : -(i + 1));
+  }
+
+  //shifts arr[i..count) right by one and puts val at i
+  private static void insertAt(int[] arr, int count, int i, int val){
+    System.arraycopy(arr, i, arr, i + 1, count - i);
+    arr[i] = val;
+  }
+
+  private static void insertAt(Node[] arr, int count, int i, Node val){
+    System.arraycopy(arr, i, arr, i + 1, count - i);
+    arr[i] = val;
+  }
+
+  //shifts arr[i + 1..count) left by one over i
+  private static void removeAt(int[] arr, int count, int i){
+    System.arraycopy(arr, i + 1, arr, i, count - i - 1);
+  }
+
+  private static void removeAt(Node[] arr, int count, int i){
+    System.arraycopy(arr, i + 1, arr, i, count - i - 1);
+    arr[count - 1] = null;
+  }
+
+  //returns the fewest keys node may hold unless it is root
+  private static int minKeys(Node node){
+    return (node instanceof Leaf ? LEAF_KEYS / 2 : INNER_KEYS / 2);
+  }
+
+  //walks down to the leaf val belongs in
+  private Leaf findLeaf(int val){
+    Node node = root;
+    Inner inner;
+    while(node instanceof Inner){
+      inner = (Inner) node;
+      node = inner.children[childIndex(inner, val)];
+
+      //records number of levels traversed
+      levels++;
+    }
+    return (Leaf) node;
+  }
+
+  //walks down to the leaf val belongs in, storing the path
+  private Leaf findLeafPath(int val){
+    Node node = root;
+    Inner inner;
+    int i;
+    while(node instanceof Inner){
+      inner = (Inner) node;
+      i = childIndex(inner, val);
+      push(inner, i);
+      node = inner.children[i];
+
+      //records number of levels traversed
+      levels++;
+    }
+    return (Leaf) node;
+  }
+
+  /*
+  ----------------------------------------------------
+  BULK LOADING
+  ----------------------------------------------------
+  */
+
+  //builds a B+ tree from an ascending array in O(n), filling every node
+  //almost full. Duplicates are kept once like insertIter does
+  static BPlusTree fromSorted(int[] arr){
+    int[] keys = Sort.dedupeSorted(arr);
+
+    BPlusTree tree = new BPlusTree();
+    int n = keys.length;
+    if(n == 0)
+      return tree;
+    tree.size = n;
+
+    //spreads the keys evenly over as few leaves as fit them, so every leaf
+    //but a lone root is at least half full
+    int count = (n + LEAF_KEYS - 1) / LEAF_KEYS;
+    Node[] nodes = new Node[count];
+    int[] lows = new int[count];
+    Leaf prev = null;
+    Leaf leaf;
+    int start = 0;
+    int end;
+    int i;
+    for(i = 0; i < count; i++){
+      end = (int) ((long) n * (i + 1) / count);
+      leaf = new Leaf();
+      System.arraycopy(keys, start, leaf.keys, 0, end - start);
+      leaf.count = end - start;
+      leaf.prev = prev;
+      if(prev != null)
+        prev.next = leaf;
+      prev = leaf;
+      nodes[i] = leaf;
+      lows[i] = keys[start];
+      start = end;
+    }
+
+    //builds each level of inner nodes over the one below the same way, the
+    //smallest key under each child separates it from the child before it
+    Inner inner;
+    int parents;
+    int c;
+    while(count > 1){
+      parents = (count + INNER_KEYS) / (INNER_KEYS + 1);
+      start = 0;
+      for(i = 0; i < parents; i++){
+        end = (int) ((long) count * (i + 1) / parents);
+        inner = new Inner();
+        for(c = start; c < end; c++){
+          inner.children[c - start] = nodes[c];
+          if(c > start)
+            inner.keys[c - start - 1] = lows[c];
+        }
+        inner.count = end - start - 1;
+        nodes[i] = inner;
+        lows[i] = lows[start];
+        start = end;
+      }
+      count = parents;
+    }
+    tree.root = nodes[0];
+    return tree;
+  }
+
+  //sorts a copy of arr and bulk loads it, faster than n inserts
+  static BPlusTree fromUnsorted(int[] arr){
+    int[] sorted = Arrays.copyOf(arr, arr.length);
+    Arrays.sort(sorted);
+    return fromSorted(sorted);
+  }
+
+  /*
+  ----------------------------------------------------
+  ITERATIVE METHODS
+  ----------------------------------------------------
+  */
+
+  //inserts val if it is not in the tree yet
+  @Override
+  public void insertIter(int val){
+    Leaf leaf = findLeafPath(val);
+    int i = Arrays.binarySearch(leaf.keys, 0, leaf.count, val);
+
+    //edge case if val already exists in tree
+    if(i >= 0){
+      pathSize = 0;
+      return;
+    }
+    i = -(i + 1);
+    size++;
+
+    //case: leaf has room
+    if(leaf.count < LEAF_KEYS){
+      insertAt(leaf.keys, leaf.count, i, val);
+      leaf.count++;
+      pathSize = 0;
+      return;
+    }
+
+    //case: leaf is full, moves its upper half into a new leaf after it
+    int half = LEAF_KEYS / 2;
+    Leaf right = new Leaf();
+    System.arraycopy(leaf.keys, half, right.keys, 0, LEAF_KEYS - half);
+    right.count = LEAF_KEYS - half;
+    leaf.count = half;
+    right.next = leaf.next;
+    if(leaf.next != null)
+      leaf.next.prev = right;
+    right.prev = leaf;
+    leaf.next = right;
+
+    if(i <= half){
+      insertAt(leaf.keys, leaf.count, i, val);
+      leaf.count++;
+    }
+    else{
+      insertAt(right.keys, right.count, i - half, val);
+      right.count++;
+    }
+
+    //adds the new leaf to the parent, splitting parents up the path as needed
+    insertChild(right.keys[0], right);
+  }
+
+  //adds node "right" after the child taken at the top of the path, separated
+  //from it by key. Splits full nodes into two, moving their middle key up,
+  //and grows the tree a level if root splits
+  private void insertChild(int key, Node right){
+    Inner parent;
+    Inner sibling;
+    int i;
+    int n = INNER_KEYS;
+    int mid = (n + 1) / 2;
+    while(pathSize > 0){
+      pathSize--;
+      parent = path[pathSize];
+      i = pathIndex[pathSize];
+
+      //case: parent has room
+      if(parent.count < n){
+        insertAt(parent.keys, parent.count, i, key);
+        insertAt(parent.children, parent.count + 1, i + 1, right);
+        parent.count++;
+        pathSize = 0;
+        return;
+      }
+
+      //case: parent is full, lines up its keys and children with the new
+      //ones and splits them around the middle key
+      System.arraycopy(parent.keys, 0, splitKeys, 0, i);
+      splitKeys[i] = key;
+      System.arraycopy(parent.keys, i, splitKeys, i + 1, n - i);
+      System.arraycopy(parent.children, 0, splitChildren, 0, i + 1);
+      splitChildren[i + 1] = right;
+      System.arraycopy(parent.children, i + 1, splitChildren, i + 2, n - i);
+
+      sibling = new Inner();
+      System.arraycopy(splitKeys, 0, parent.keys, 0, mid);
+      System.arraycopy(splitChildren, 0, parent.children, 0, mid + 1);
+      Arrays.fill(parent.children, mid + 1, n + 1, null);
+      parent.count = mid;
+      System.arraycopy(splitKeys, mid + 1, sibling.keys, 0, n - mid);
+      System.arraycopy(splitChildren, mid + 1, sibling.children, 0, n - mid + 1);
+      sibling.count = n - mid;
+      Arrays.fill(splitChildren, null);
+
+      key = splitKeys[mid];
+      right = sibling;
+    }
+
+    //case: root split, the halves become the children of a new root
+    Inner top = new Inner();
+    top.keys[0] = key;
+    top.children[0] = root;
+    top.children[1] = right;
+    top.count = 1;
+    root = top;
+  }
+
+  //deletes val from the tree
+  @Override
+  public void deleteIter(int val){
+    Leaf leaf = findLeafPath(val);
+    int i = Arrays.binarySearch(leaf.keys, 0, leaf.count, val);
+
+    //returns if val does not exist
+    if(i < 0){
+      pathSize = 0;
+      return;
+    }
+    removeAt(leaf.keys, leaf.count, i);
+    leaf.count--;
+    size--;
+
+    //refills less than half full nodes from the bottom up. Separators above
+    //don't need to change when a leaf's smallest key goes, they still split
+    //the keys correctly
+    Node node = leaf;
+    while(pathSize > 0 && node.count < minKeys(node)){
+      pathSize--;
+      node = path[pathSize];
+      refill((Inner) node, pathIndex[pathSize]);
+    }
+    pathSize = 0;
+
+    //case: root lost its last key, its only child becomes root
+    if(root instanceof Inner && root.count == 0)
+      root = ((Inner) root).children[0];
+  }
+
+  //refills child c of parent, which is less than half full, by taking a key
+  //from a sibling or merging with it if the sibling has none to spare
+  private void refill(Inner parent, int c){
+    //the child and its sibling, left and right, and the key between them
+    int s = (c > 0 ? c - 1 : 0);
+    Node left = parent.children[s];
+    Node right = parent.children[s + 1];
+    Node sibling = (c > 0 ? left : right);
+
+    //case: sibling can spare a key
+    if(sibling.count > minKeys(sibling)){
+      if(sibling == left)
+        takeFromLeft(parent, s, left, right);
+      else
+        takeFromRight(parent, s, left, right);
+      return;
+    }
+
+    //case: merges right into left, both fit in one node
+    if(left instanceof Leaf){
+      Leaf l = (Leaf) left;
+      Leaf r = (Leaf) right;
+      System.arraycopy(r.keys, 0, l.keys, l.count, r.count);
+      l.count += r.count;
+      l.next = r.next;
+      if(r.next != null)
+        r.next.prev = l;
+    }
+    else{
+      Inner l = (Inner) left;
+      Inner r = (Inner) right;
+      l.keys[l.count] = parent.keys[s];
+      System.arraycopy(r.keys, 0, l.keys, l.count + 1, r.count);
+      System.arraycopy(r.children, 0, l.children, l.count + 1, r.count + 1);
+      l.count += r.count + 1;
+    }
+    removeAt(parent.keys, parent.count, s);
+    removeAt(parent.children, parent.count + 1, s + 1);
+    parent.count--;
+  }
+
+  //moves the biggest key of left into right, separated by parent.keys[s]
+  private void takeFromLeft(Inner parent, int s, Node left, Node right){
+    if(left instanceof Leaf){
+      insertAt(right.keys, right.count, 0, left.keys[left.count - 1]);
+      parent.keys[s] = right.keys[0];
+    }
+    else{
+      //inner keys rotate through the parent, the last child moves with them
+      Inner l = (Inner) left;
+      Inner r = (Inner) right;
+      insertAt(r.keys, r.count, 0, parent.keys[s]);
+      insertAt(r.children, r.count + 1, 0, l.children[l.count]);
+      l.children[l.count] = null;
+      parent.keys[s] = l.keys[l.count - 1];
+    }
+    left.count--;
+    right.count++;
+  }
+
+  //moves the smallest key of right into left, separated by parent.keys[s]
+  private void takeFromRight(Inner parent, int s, Node left, Node right){
+    if(left instanceof Leaf){
+      left.keys[left.count] = right.keys[0];
+      removeAt(right.keys, right.count, 0);
+      parent.keys[s] = right.keys[0];
+    }
+    else{
+      //inner keys rotate through the parent, the first child moves with them
+      Inner l = (Inner) left;
+      Inner r = (Inner) right;
+      l.keys[l.count] = parent.keys[s];
+      l.children[l.count + 1] = r.children[0];
+      parent.keys[s] = r.keys[0];
+      removeAt(r.keys, r.count, 0);
+      removeAt(r.children, r.count + 1, 0);
+    }
+    left.count++;
+    right.count--;
+  }
+
+  //returns whether val is in the tree
+  @Override
+  public boolean contains(int val){
+    Leaf leaf = findLeaf(val);
+    return Arrays.binarySearch(leaf.keys, 0, leaf.count, val) >= 0;
+  }
+
+  //finds the biggest key that is smaller than or equal to val, null if none
+  Integer floor(int val){
+    Leaf leaf = findLeaf(val);
+    int i = Arrays.binarySearch(leaf.keys, 0, leaf.count, val);
+    if(i >= 0)
+      return val;
+    return before(leaf, -(i + 1));
+  }
+
+  //finds the smallest key that is bigger than or equal to val, null if none
+  Integer ceiling(int val){
+    Leaf leaf = findLeaf(val);
+    int i = Arrays.binarySearch(leaf.keys, 0, leaf.count, val);
+    if(i >= 0)
+      return val;
+    return from(leaf, -(i + 1));
+  }
+
+  //finds the biggest key that is strictly smaller than val, null if none
+  Integer lower(int val){
+    Leaf leaf = findLeaf(val);
+    int i = Arrays.binarySearch(leaf.keys, 0, leaf.count, val);
+    return before(leaf, (i >= 0 ? i : -(i + 1)));
+  }
+
+  //finds the smallest key that is strictly bigger than val, null if none
+  Integer higher(int val){
+    Leaf leaf = findLeaf(val);
+    int i = Arrays.binarySearch(leaf.keys, 0, leaf.count, val);
+    return from(leaf, (i >= 0 ? i + 1 : -(i + 1)));
+  }
+
+  //returns the key before index i of leaf, which may be in the leaf before
+  private static Integer before(Leaf leaf, int i){
+    if(i > 0)
+      return leaf.keys[i - 1];
+    if(leaf.prev == null)
+      return null;
+    return leaf.prev.keys[leaf.prev.count - 1];
+  }
+
+  //returns the key at index i of leaf, which may be in the leaf after
+  private static Integer from(Leaf leaf, int i){
+    if(i < leaf.count)
+      return leaf.keys[i];
+    if(leaf.next == null)
+      return null;
+    return leaf.next.keys[0];
+  }
+
+  //finds the smallest key that is bigger than val, null if none
+  @Override
+  public Integer findNextIter(int val){
+    return higher(val);
+  }
+
+  //finds the biggest key that is smaller than val, null if none
+  @Override
+  public Integer findPrevIter(int val){
+    return lower(val);
+  }
+
+  //returns the leaf holding the smallest keys
+  private Leaf firstLeaf(){
+    Node node = root;
+    while(node instanceof Inner)
+      node = ((Inner) node).children[0];
+    return (Leaf) node;
+  }
+
+  //returns the leaf holding the biggest keys
+  private Leaf lastLeaf(){
+    Node node = root;
+    while(node instanceof Inner)
+      node = ((Inner) node).children[node.count];
+    return (Leaf) node;
+  }
+
+  //finds the minimum number in the tree iteratively
+  @Override
+  public int findMinIter(){
+    if(size == 0)
+      throw new NoSuchElementException();
+    return firstLeaf().keys[0];
+  }
+
+  //finds the maximum number in the tree iteratively
+  @Override
+  public int findMaxIter(){
+    if(size == 0)
+      throw new NoSuchElementException();
+    Leaf leaf = lastLeaf();
+    return leaf.keys[leaf.count - 1];
+  }
+
+  //writes the tree into arr in order starting at index from, returns the
+  //number written. Copies whole leaves along the leaf chain
+  @Override
+  public int inorderIter(int[] arr, int from){
+    int i = from;
+    for(Leaf leaf = firstLeaf(); leaf != null; leaf = leaf.next){
+      System.arraycopy(leaf.keys, 0, arr, i, leaf.count);
+      i += leaf.count;
+    }
+    return i - from;
+  }
+
+  /*
+  ----------------------------------------------------
+  ITERATORS
+  ----------------------------------------------------
+  */
+
+  //iterator over the keys in order, moving along the leaf chain. Only needs
+  //a leaf and an index, so next() is O(1). The tree must not be changed
+  //while iterating
+  private class Cursor implements PrimitiveIterator.OfInt{
+    private Leaf leaf;
+    private int index;
+    private final boolean ascending;
+
+    //starts at key index of leaf, moving to the next leaf if it is past the
+    //end of leaf, or the leaf before if it is before the start
+    Cursor(Leaf leaf, int index, boolean ascending){
+      this.ascending = ascending;
+      this.leaf = leaf;
+      this.index = index;
+      if(ascending && index >= leaf.count){
+        this.leaf = leaf.next;
+        this.index = 0;
+      }
+      else if(!ascending && index < 0){
+        this.leaf = leaf.prev;
+        this.index = (this.leaf == null ? 0 : this.leaf.count - 1);
+      }
+    }
+
+    @Override
+    public boolean hasNext(){
+      return leaf != null;
+    }
+
+    @Override
+    public int nextInt(){
+      if(leaf == null)
+        throw new NoSuchElementException();
+      int val = leaf.keys[index];
+      if(ascending){
+        index++;
+        if(index == leaf.count){
+          leaf = leaf.next;
+          index = 0;
+        }
+      }
+      else{
+        index--;
+        if(index < 0){
+          leaf = leaf.prev;
+          if(leaf != null)
+            index = leaf.count - 1;
+        }
+      }
+      return val;
+    }
+  }
+
+  //iterates the keys from smallest to biggest
+  @Override
+  public PrimitiveIterator.OfInt iterator(){
+    return new Cursor(firstLeaf(), 0, true);
+  }
+
+  //iterates the keys from biggest to smallest
+  PrimitiveIterator.OfInt descendingIterator(){
+    Leaf leaf = lastLeaf();
+    return new Cursor(leaf, leaf.count - 1, false);
+  }
+
+  //iterates the keys bigger than or equal to val from smallest to biggest
+  PrimitiveIterator.OfInt iteratorFrom(int val){
+    Leaf leaf = findLeaf(val);
+    int i = Arrays.binarySearch(leaf.keys, 0, leaf.count, val);
+    return new Cursor(leaf, (i >= 0 ? i : -(i + 1)), true);
+  }
+
+  //iterates the keys smaller than or equal to val from biggest to smallest
+  PrimitiveIterator.OfInt descendingIteratorFrom(int val){
+    Leaf leaf = findLeaf(val);
+    int i = Arrays.binarySearch(leaf.keys, 0, leaf.count, val);
+    return new Cursor(leaf, (i >= 0 ? i : -(i + 1) - 1), false);
+  }
+}
+
+//end of file
@@ -2,9 +2,11 @@
 Binary Search Tree Class
 Written by Giancarlo Calle
 */
-import java.util.Stack;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
 
-public class BST{
+public class BST implements OrderedIntSet{
   //Node struct used in the tree
   class Node{
     int data;
@@ -17,38 +19,470 @@ public class BST{
     }
   }
 
-  //BST constructor
+  //BST constructor, the *Rec methods run their iterative versions
   public BST(){
+    this(false);
+  }
+
+  //BST constructor, recursive decides whether the *Rec methods recurse
+  public BST(boolean recursive){
     this.root = null;
+    this.size = 0;
     this.levels = 0;
+    this.recursive = recursive;
   }
 
+  //whether the *Rec methods really recurse. A BST built from sorted input is
+  //as deep as it is long, and recursing down it overflows the thread stack,
+  //so recursion has to be asked for explicitly
+  private final boolean recursive;
+
   //will be root of the tree
   Node root;
 
+  //number of nodes in the tree
+  int size;
+  @Override
+  public int getSize(){
+    return size;
+  }
+
   //records the amount of levels of the tree traversed w/ methods
-  int levels;
-  public int getLevels(){
+  long levels;
+  @Override
+  public long getLevels(){
     return levels;
   }
 
-  //stack used to store parents for methods
-  private Stack<Node> stack = new Stack<>();
+  //metrics recorded by the inserts, deletes and contains, null when off
+  //so the only cost is a null check
+  private TreeMetrics metrics;
+  void setMetrics(TreeMetrics metrics){
+    this.metrics = metrics;
+  }
 
-  //prints nodes in BST
-  private void printHelper(Node node){
-    if(node == null)
-      return;
-    printHelper(node.left);
-    System.out.print(node.data + " ");
-    printHelper(node.right);
+  TreeMetrics getMetrics(){
+    return metrics;
+  }
+
+  //stack used to store parents for methods. Kept in a preallocated array
+  //instead of java.util.Stack so paths don't lock or allocate. A BST can
+  //degenerate into a list, so the array grows when needed
+  private Node[] stack = new Node[48];
+  private int stackSize;
+
+  //adds node to the top of the stack
+  private void push(Node node){
+    if(stackSize == stack.length)
+      stack = Arrays.copyOf(stack, stackSize * 2);
+    stack[stackSize] = node;
+    stackSize++;
   }
 
+  //removes and returns the top of the stack, clearing its slot so deleted
+  //nodes aren't kept reachable
+  private Node pop(){
+    stackSize--;
+    Node node = stack[stackSize];
+    stack[stackSize] = null;
+    return node;
+  }
+
+  //returns the top of the stack
+  private Node peek(){
+    return stack[stackSize - 1];
+  }
+
+  //prints nodes in BST iteratively
   void print(){
-    printHelper(root);
+    PrimitiveIterator.OfInt it = iterator();
+    while(it.hasNext())
+      System.out.print(it.nextInt() + " ");
     System.out.print("\n");
   }
 
+  /*
+  ----------------------------------------------------
+  BULK LOADING
+  ----------------------------------------------------
+  */
+
+  //builds a perfectly balanced BST from an ascending array in O(n) without
+  //rotations. Duplicates are kept once like insertIter does
+  static BST fromSorted(int[] arr){
+    int[] keys = Sort.dedupeSorted(arr);
+
+    BST tree = new BST();
+    tree.root = tree.buildSorted(keys, 0, keys.length - 1);
+    tree.size = keys.length;
+    return tree;
+  }
+
+  //sorts a copy of arr and bulk loads it, faster than n inserts
+  static BST fromUnsorted(int[] arr){
+    int[] sorted = Arrays.copyOf(arr, arr.length);
+    Arrays.sort(sorted);
+    return fromSorted(sorted);
+  }
+
+  //builds a balanced subtree from keys[lo..hi], the middle key is the root.
+  //Recursion is only log2(n) deep since both halves are the same size
+  private Node buildSorted(int[] keys, int lo, int hi){
+    if(lo > hi)
+      return null;
+
+    int mid = (lo + hi) >>> 1;
+    Node node = new Node(keys[mid]);
+    node.left = buildSorted(keys, lo, mid - 1);
+    node.right = buildSorted(keys, mid + 1, hi);
+    return node;
+  }
+
+  /*
+  ----------------------------------------------------
+  BATCH METHODS
+  ----------------------------------------------------
+  */
+
+  //returns whether applying a batch of m keys by rebuilding the tree, which
+  //is O(n + m), is cheaper than m separate O(log n) inserts or deletes. The
+  //rebuild walks every node, so it needs about twice the work to pay off.
+  //AVL rebuilds later, only for batches as big as the tree, since it merges
+  //smaller batches down the tree with joins that a BST has no balance for
+  private boolean rebuildCheaper(int m){
+    int log = 32 - Integer.numberOfLeadingZeros(size);
+    return (long) m * log >= 2L * size;
+  }
+
+  //writes the nodes of the tree into nodes in order
+  private void inorderNodes(Node[] nodes){
+    Node curr = root;
+    int i = 0;
+    while(curr != null || stackSize > 0){
+      while(curr != null){
+        push(curr);
+        curr = curr.left;
+      }
+      curr = pop();
+      nodes[i] = curr;
+      i++;
+      curr = curr.right;
+    }
+  }
+
+  //relinks nodes[lo..hi] into a balanced subtree, reusing the nodes so a
+  //rebuild only allocates nodes for new keys
+  private Node linkSorted(Node[] nodes, int lo, int hi){
+    if(lo > hi)
+      return null;
+
+    int mid = (lo + hi) >>> 1;
+    Node node = nodes[mid];
+    node.left = linkSorted(nodes, lo, mid - 1);
+    node.right = linkSorted(nodes, mid + 1, hi);
+    return node;
+  }
+
+  //Walks down from the start of the path to val, pushing the nodes it turns
+  //left at, and returns the node holding val or null if there is none. The
+  //stack keeps the left turns of the previous walk, whose keys bound the
+  //subtrees they lead into. Batches walk ascending keys, so the ones not
+  //bigger than val are popped and the walk starts below the nearest bigger
+  //one instead of at the root. Keys that land close together share most of
+  //their walk, and nothing recurses down a tall BST. parent[0] is set to
+  //the last node passed and left[0] to whether val is on its left
+  private Node descendFrom(int val, Node[] parent, boolean[] left){
+    while(stackSize > 0 && peek().data <= val)
+      pop();
+
+    Node curr;
+    if(stackSize == 0){
+      parent[0] = null;
+      curr = root;
+    }
+    else{
+      parent[0] = peek();
+      curr = parent[0].left;
+    }
+    left[0] = true;
+
+    while(curr != null && curr.data != val){
+      //records number of levels traversed
+      levels++;
+      parent[0] = curr;
+      if(val < curr.data){
+        push(curr);
+        curr = curr.left;
+        left[0] = true;
+      }
+      else{
+        curr = curr.right;
+        left[0] = false;
+      }
+    }
+    return curr;
+  }
+
+  //inserts the sorted, unique keys of batch, each walking down from where
+  //the last one's walk left off
+  private void insertBatch(int[] batch){
+    Node[] parent = new Node[1];
+    boolean[] left = new boolean[1];
+    Node node;
+    int i;
+    for(i = 0; i < batch.length; i++){
+      if(descendFrom(batch[i], parent, left) != null)
+        continue;
+      node = new Node(batch[i]);
+      size++;
+      if(parent[0] == null)
+        root = node;
+      else if(left[0])
+        parent[0].left = node;
+      else
+        parent[0].right = node;
+    }
+    clearStack();
+  }
+
+  //deletes the sorted, unique keys of batch, each walking down from where
+  //the last one's walk left off. Only nodes below the stack change, so it
+  //stays valid for the keys after each delete
+  private void deleteBatch(int[] batch){
+    Node[] parent = new Node[1];
+    boolean[] left = new boolean[1];
+    Node node;
+    Node child;
+    Node next;
+    Node nextParent;
+    int i;
+    for(i = 0; i < batch.length; i++){
+      node = descendFrom(batch[i], parent, left);
+      if(node == null)
+        continue;
+      size--;
+
+      //case: two children, unlinks the successor and moves its key here
+      if(node.left != null && node.right != null){
+        nextParent = node;
+        next = node.right;
+        while(next.left != null){
+          nextParent = next;
+          next = next.left;
+        }
+        if(nextParent == node)
+          node.right = next.right;
+        else
+          nextParent.left = next.right;
+        node.data = next.data;
+        continue;
+      }
+
+      //replaces node with its only child, or null if it has no children
+      child = (node.left == null ? node.right : node.left);
+      if(parent[0] == null)
+        root = child;
+      else if(left[0])
+        parent[0].left = child;
+      else
+        parent[0].right = child;
+    }
+    clearStack();
+  }
+
+  //inserts every value of vals. Big batches are merged with the nodes of the
+  //tree and relinked in O(n + m), smaller ones are inserted in sorted order
+  //by insertBatch() so consecutive keys share their walk down
+  void insertAll(int[] vals){
+    if(metrics == null){
+      insertAllHelper(vals);
+      return;
+    }
+    long start = System.nanoTime();
+    long before = levels;
+    insertAllHelper(vals);
+    metrics.recordBatch(TreeMetrics.INSERT, System.nanoTime() - start,
+      levels - before, vals.length);
+  }
+
+  //insertAll helper
+  private void insertAllHelper(int[] vals){
+    int[] batch = Sort.sortAndDedupe(vals);
+    int i;
+    if(!rebuildCheaper(batch.length)){
+      insertBatch(batch);
+      return;
+    }
+
+    //merges the tree's nodes with new nodes for keys only in the batch
+    Node[] nodes = new Node[size];
+    inorderNodes(nodes);
+    Node[] merged = new Node[nodes.length + batch.length];
+    int k = 0;
+    int count = 0;
+    i = 0;
+    while(k < nodes.length || i < batch.length){
+      if(i == batch.length || (k < nodes.length && nodes[k].data <= batch[i])){
+        if(i < batch.length && nodes[k].data == batch[i])
+          i++;
+        merged[count] = nodes[k];
+        k++;
+      }
+      else{
+        merged[count] = new Node(batch[i]);
+        i++;
+      }
+      count++;
+    }
+
+    root = linkSorted(merged, 0, count - 1);
+    size = count;
+  }
+
+  //deletes every value of vals, relinking the tree for big batches and
+  //sharing the walks of smaller ones like insertAll does
+  void deleteAll(int[] vals){
+    if(metrics == null){
+      deleteAllHelper(vals);
+      return;
+    }
+    long start = System.nanoTime();
+    long before = levels;
+    deleteAllHelper(vals);
+    metrics.recordBatch(TreeMetrics.DELETE, System.nanoTime() - start,
+      levels - before, vals.length);
+  }
+
+  //deleteAll helper
+  private void deleteAllHelper(int[] vals){
+    int[] batch = Sort.sortAndDedupe(vals);
+    int i;
+    if(!rebuildCheaper(batch.length)){
+      deleteBatch(batch);
+      return;
+    }
+
+    //keeps the tree's nodes whose keys are not in the batch
+    Node[] nodes = new Node[size];
+    inorderNodes(nodes);
+    int count = 0;
+    int k;
+    i = 0;
+    for(k = 0; k < nodes.length; k++){
+      while(i < batch.length && batch[i] < nodes[k].data)
+        i++;
+      if(i < batch.length && batch[i] == nodes[k].data){
+        size--;
+        continue;
+      }
+      nodes[count] = nodes[k];
+      count++;
+    }
+
+    root = linkSorted(nodes, 0, count - 1);
+  }
+
+  /*
+  ----------------------------------------------------
+  ITERATORS
+  ----------------------------------------------------
+  */
+
+  //iterator over the keys in order. Keeps its own path of parents so next()
+  //is amortized O(1) and iterators don't share the tree's stack. The tree
+  //must not be changed while iterating
+  private class Cursor implements PrimitiveIterator.OfInt{
+    private Node[] path = new Node[16];
+    private int pathSize;
+    private final boolean ascending;
+
+    //starts at the first key not before val in the direction of travel
+    Cursor(int val, boolean ascending){
+      this.ascending = ascending;
+
+      //stores every node on the way to val that is still to be visited
+      Node curr = root;
+      while(curr != null){
+        if(curr.data == val){
+          add(curr);
+          return;
+        }
+        if((curr.data > val) == ascending){
+          add(curr);
+          if(ascending)
+            curr = curr.left;
+          else
+            curr = curr.right;
+        }
+        else if(ascending)
+          curr = curr.right;
+        else
+          curr = curr.left;
+      }
+    }
+
+    //adds node to the top of the path
+    private void add(Node node){
+      if(pathSize == path.length)
+        path = Arrays.copyOf(path, pathSize * 2);
+      path[pathSize] = node;
+      pathSize++;
+    }
+
+    @Override
+    public boolean hasNext(){
+      return pathSize > 0;
+    }
+
+    @Override
+    public int nextInt(){
+      if(pathSize == 0)
+        throw new NoSuchElementException();
+
+      pathSize--;
+      Node node = path[pathSize];
+
+      //the nodes after node are the left (or right) spine of its other side
+      Node curr;
+      if(ascending){
+        curr = node.right;
+        while(curr != null){
+          add(curr);
+          curr = curr.left;
+        }
+      }
+      else{
+        curr = node.left;
+        while(curr != null){
+          add(curr);
+          curr = curr.right;
+        }
+      }
+      return node.data;
+    }
+  }
+
+  //iterates the keys from smallest to biggest
+  @Override
+  public PrimitiveIterator.OfInt iterator(){
+    return new Cursor(Integer.MIN_VALUE, true);
+  }
+
+  //iterates the keys from biggest to smallest
+  PrimitiveIterator.OfInt descendingIterator(){
+    return new Cursor(Integer.MAX_VALUE, false);
+  }
+
+  //iterates the keys bigger than or equal to val from smallest to biggest
+  PrimitiveIterator.OfInt iteratorFrom(int val){
+    return new Cursor(val, true);
+  }
+
+  //iterates the keys smaller than or equal to val from biggest to smallest
+  PrimitiveIterator.OfInt descendingIteratorFrom(int val){
+    return new Cursor(val, false);
+  }
+
   /*
   ----------------------------------------------------
   RECUSIVE METHODS
@@ -57,6 +491,9 @@ public class BST{
 
   //insertRec recursive helper
   void insertRecHelper(Node node, int val){
+    //records number of levels traversed
+    levels++;
+
     //value of node used to compare
     int valCheck = node.data;
 
@@ -66,16 +503,20 @@ public class BST{
 
     //checks if node should be on the right of current node
     if(val > valCheck){
-      if(node.right == null)
+      if(node.right == null){
         node.right = new Node(val);
+        size++;
+      }
       else
         insertRecHelper(node.right, val);
     }
 
     //checks if node should be on the right of current node
     else{
-      if(node.left == null)
+      if(node.left == null){
         node.left = new Node(val);
+        size++;
+      }
       else
         insertRecHelper(node.left, val);
     }
@@ -83,9 +524,29 @@ public class BST{
 
   //Inserts into the tree recursively
   void insertRec(int val){
+    //runs the iterative version unless recursion was asked for
+    if(!recursive){
+      insertIter(val);
+      return;
+    }
+
+    if(metrics == null){
+      insertRecRoot(val);
+      return;
+    }
+    long start = System.nanoTime();
+    long before = levels;
+    insertRecRoot(val);
+    metrics.record(TreeMetrics.INSERT, System.nanoTime() - start, levels - before);
+  }
+
+  //inserts recursively from the root
+  private void insertRecRoot(int val){
     //checks if tree is empty
-    if(root == null)
+    if(root == null){
       root = new Node(val);
+      size++;
+    }
     else
       insertRecHelper(root, val);
   }
@@ -111,21 +572,27 @@ public class BST{
       return;
 
     //adds node to stack and continues to find the node
-    stack.push(curr);
+    push(curr);
     if(curr.data > goal.data)
       parentsRec(curr.left, goal);
     else
       parentsRec(curr.right, goal);
   }
 
-  //clears the stack
+  //clears the stack, every slot above stackSize is already null
   private void clearStack(){
-    while(stack.size() > 0)
-      stack.pop();
+    while(stackSize > 0){
+      stackSize--;
+      stack[stackSize] = null;
+    }
   }
 
   //finds the smallest node that is bigger than "node"
   Node findNextRec(Node node){
+    //runs the iterative version unless recursion was asked for
+    if(!recursive)
+      return findNextIter(node);
+
     //case: smaller node is the left most node in the right subtree
     if(node.right != null)
       return leftMostNodeRec(node.right);
@@ -139,8 +606,8 @@ public class BST{
 
     //case: smallest parent that is bigger is next node
     Node parent;
-    while(stack.size() != 0){
-      parent = stack.pop();
+    while(stackSize != 0){
+      parent = pop();
       if(parent.data > node.data){
         clearStack();
         return parent;
@@ -153,6 +620,10 @@ public class BST{
 
   //finds the biggest node that is smaller than "node"
   Node findPrevRec(Node node){
+    //runs the iterative version unless recursion was asked for
+    if(!recursive)
+      return findPrevIter(node);
+
     //case: smaller node is the right most node in the left subtree
     if(node.left != null)
       return rightMostNodeRec(node.left);
@@ -166,8 +637,8 @@ public class BST{
 
     //case: smallest parent that is bigger is next node
     Node parent;
-    while(stack.size() != 0){
-      parent = stack.pop();
+    while(stackSize != 0){
+      parent = pop();
       if(parent.data < node.data){
         clearStack();
         return parent;
@@ -180,11 +651,21 @@ public class BST{
 
   //finds the minimum number in the tree recursively
   int findMinRec(){
+    if(root == null)
+      throw new NoSuchElementException();
+    //runs the iterative version unless recursion was asked for
+    if(!recursive)
+      return findMinIter();
     return leftMostNodeRec(root).data;
   }
 
   //finds the maximum number in the tree recursively
   int findMaxRec(){
+    if(root == null)
+      throw new NoSuchElementException();
+    //runs the iterative version unless recursion was asked for
+    if(!recursive)
+      return findMaxIter();
     return rightMostNodeRec(root).data;
   }
 
@@ -194,6 +675,9 @@ public class BST{
     if(node == null)
       return null;
 
+    //records number of levels traversed
+    levels++;
+
     //finds node to delete
     if(node.data > val){
       node.left = deleteRecHelper(node.left, val);
@@ -206,14 +690,19 @@ public class BST{
 
     //case: simply delete node if it has no children
     if(node.left == null && node.right == null){
+      size--;
       return null;
     }
 
     //case: replace node with child if it only has one child
-    if(node.left == null)
+    if(node.left == null){
+      size--;
       return node.right;
-    else if(node.right == null)
+    }
+    else if(node.right == null){
+      size--;
       return node.left;
+    }
 
     //case: deleting a node with two children
     Node r = findNextRec(node);
@@ -225,13 +714,21 @@ public class BST{
 
   //deletes node that contains number in the tree
   void deleteRec(int val){
-    //checks if deleting root
-    if(root.data == val){
-      root = deleteRecHelper(root, val);
+    //runs the iterative version unless recursion was asked for
+    if(!recursive){
+      deleteIter(val);
       return;
     }
 
-    deleteRecHelper(root, val);
+    //deletes recursively, root changes if it is the node deleted
+    if(metrics == null){
+      root = deleteRecHelper(root, val);
+      return;
+    }
+    long start = System.nanoTime();
+    long before = levels;
+    root = deleteRecHelper(root, val);
+    metrics.record(TreeMetrics.DELETE, System.nanoTime() - start, levels - before);
   }
 
   /*
@@ -240,10 +737,24 @@ public class BST{
   ----------------------------------------------------
   */
 
-  void insertIter(int val){
+  @Override
+  public void insertIter(int val){
+    if(metrics == null){
+      insertIterHelper(val);
+      return;
+    }
+    long start = System.nanoTime();
+    long before = levels;
+    insertIterHelper(val);
+    metrics.record(TreeMetrics.INSERT, System.nanoTime() - start, levels - before);
+  }
+
+  //insertIter helper
+  private void insertIterHelper(int val){
     //checks if tree is empty
     if(root == null){
       root = new Node(val);
+      size++;
       return;
     }
 
@@ -255,11 +766,16 @@ public class BST{
     while(true){
       valCheck = curr.data;
 
+      //edge case if val already exists in tree
+      if(valCheck == val)
+        return;
+
       //checks if it should be to the left
       if(val < valCheck){
         //checks if available to insert
         if(curr.left == null){
           curr.left = new Node(val);
+          size++;
           return;
         }
         curr = curr.left;
@@ -269,6 +785,7 @@ public class BST{
       else{
         if(curr.right == null){
           curr.right = new Node(val);
+          size++;
           return;
         }
         curr = curr.right;
@@ -291,16 +808,6 @@ public class BST{
     return node;
   }
 
-  private void parentsIter(Node curr, Node goal){
-    while(curr != goal){
-      stack.push(curr);
-      if(curr.data > goal.data)
-        curr = curr.left;
-      else
-        curr = curr.right;
-    }
-  }
-
   Node findNextIter(Node node){
     //case: smaller node is the left most node in the right subtree
     if(node.right != null)
@@ -310,21 +817,21 @@ public class BST{
     if(root == node)
       return null;
 
-    //populates stack with parents recursively
-    parentsIter(root, node);
-
-    //case: smallest parent that is bigger is next node
-    Node parent;
-    while(stack.size() != 0){
-      parent = stack.pop();
-      if(parent.data > node.data){
-        clearStack();
-        return parent;
+    //case: next node is the last parent the path from root went left at.
+    //Walks down from root without storing parents so readers share nothing
+    Node curr = root;
+    Node parent = null;
+    while(curr != node){
+      if(curr.data > node.data){
+        parent = curr;
+        curr = curr.left;
       }
+      else
+        curr = curr.right;
     }
 
-    //No next node exists
-    return null;
+    //returns null if no next node exists
+    return parent;
   }
 
   //finds the biggest node that is smaller than "node"
@@ -337,113 +844,246 @@ public class BST{
     if(root == node)
       return null;
 
-    //populates stack with parents recursively
-    parentsIter(root, node);
+    //case: previous node is the last parent the path from root went right at.
+    //Walks down from root without storing parents so readers share nothing
+    Node curr = root;
+    Node parent = null;
+    while(curr != node){
+      if(curr.data < node.data){
+        parent = curr;
+        curr = curr.right;
+      }
+      else
+        curr = curr.left;
+    }
 
-    //case: smallest parent that is bigger is next node
-    Node parent;
-    while(stack.size() != 0){
-      parent = stack.pop();
-      if(parent.data < node.data){
-        clearStack();
-        return parent;
+    //returns null if no previous node exists
+    return parent;
+  }
+
+  //finds the smallest key that is bigger than val, null if none
+  @Override
+  public Integer findNextIter(int val){
+    Node node = higher(val);
+    return (node == null ? null : node.data);
+  }
+
+  //finds the biggest key that is smaller than val, null if none
+  @Override
+  public Integer findPrevIter(int val){
+    Node node = lower(val);
+    return (node == null ? null : node.data);
+  }
+
+  //returns whether val is in the tree
+  @Override
+  public boolean contains(int val){
+    if(metrics == null)
+      return containsHelper(val);
+    long start = System.nanoTime();
+    long before = levels;
+    boolean found = containsHelper(val);
+    metrics.record(TreeMetrics.CONTAINS, System.nanoTime() - start, levels - before);
+    return found;
+  }
+
+  //contains helper
+  private boolean containsHelper(int val){
+    Node curr = root;
+    while(curr != null){
+      if(curr.data == val)
+        return true;
+      if(curr.data > val)
+        curr = curr.left;
+      else
+        curr = curr.right;
+
+      //records number of levels traversed
+      levels++;
+    }
+    return false;
+  }
+
+  //finds the biggest node that is smaller than or equal to val, null if none
+  Node floor(int val){
+    Node curr = root;
+    Node best = null;
+    while(curr != null){
+      if(curr.data == val)
+        return curr;
+      if(curr.data > val)
+        curr = curr.left;
+      else{
+        best = curr;
+        curr = curr.right;
       }
+
+      //records number of levels traversed
+      levels++;
     }
+    return best;
+  }
 
-    //No next node exists
-    return null;
+  //finds the smallest node that is bigger than or equal to val, null if none
+  Node ceiling(int val){
+    Node curr = root;
+    Node best = null;
+    while(curr != null){
+      if(curr.data == val)
+        return curr;
+      if(curr.data < val)
+        curr = curr.right;
+      else{
+        best = curr;
+        curr = curr.left;
+      }
+
+      //records number of levels traversed
+      levels++;
+    }
+    return best;
+  }
+
+  //finds the biggest node that is strictly smaller than val, null if none
+  Node lower(int val){
+    Node curr = root;
+    Node best = null;
+    while(curr != null){
+      if(curr.data >= val)
+        curr = curr.left;
+      else{
+        best = curr;
+        curr = curr.right;
+      }
+
+      //records number of levels traversed
+      levels++;
+    }
+    return best;
+  }
+
+  //finds the smallest node that is strictly bigger than val, null if none
+  Node higher(int val){
+    Node curr = root;
+    Node best = null;
+    while(curr != null){
+      if(curr.data <= val)
+        curr = curr.right;
+      else{
+        best = curr;
+        curr = curr.left;
+      }
+
+      //records number of levels traversed
+      levels++;
+    }
+    return best;
+  }
+
+  //writes the tree into arr in order iteratively, returns the number written
+  int inorderIter(int[] arr){
+    return inorderIter(arr, 0);
+  }
+
+  //writes the tree into arr in order starting at index from, returns the
+  //number written
+  @Override
+  public int inorderIter(int[] arr, int from){
+    Node curr = root;
+    int i = from;
+    while(curr != null || stackSize > 0){
+      //goes as far left as possible storing parents
+      while(curr != null){
+        push(curr);
+        curr = curr.left;
+      }
+
+      //writes the smallest unvisited node and moves to its right subtree
+      curr = pop();
+      arr[i] = curr.data;
+      i++;
+      curr = curr.right;
+    }
+    return i - from;
   }
 
   //finds the minimum number in the tree iteratively
-  int findMinIter(){
+  @Override
+  public int findMinIter(){
+    if(root == null)
+      throw new NoSuchElementException();
     return leftMostNodeIter(root).data;
   }
 
   //finds the maximum number in the tree iteratively
-  int findMaxIter(){
+  @Override
+  public int findMaxIter(){
+    if(root == null)
+      throw new NoSuchElementException();
     return rightMostNodeIter(root).data;
   }
 
   //deletes node that contains number in the tree
-  void deleteIter(int val){
-    //checks if deleting root
-    if(root.data == val){
-      root = null;
+  @Override
+  public void deleteIter(int val){
+    if(metrics == null){
+      deleteIterHelper(val);
       return;
     }
+    long start = System.nanoTime();
+    long before = levels;
+    deleteIterHelper(val);
+    metrics.record(TreeMetrics.DELETE, System.nanoTime() - start, levels - before);
+  }
 
-    //prepares parent node to change it's pointers to other nodes
-    Node parent = root;
-    Node node;
-    if(parent.data > val)
-      node = parent.left;
-    else
-      node = parent.right;
+  //deleteIter helper
+  private void deleteIterHelper(int val){
+    //finds node to delete and its parent
+    Node parent = null;
+    Node node = root;
+    while(node != null && node.data != val){
+      parent = node;
+      if(node.data > val)
+        node = node.left;
+      else
+        node = node.right;
 
-    //loops until finds node to delete or null
-    while(node != null){
       //counts how many levels are traversed
       levels++;
+    }
+
+    //returns if node to delete does not exist
+    if(node == null)
+      return;
 
-      //finds node to delete
-      if(node.data > val){
+    //case deleting a node with two children. Copies the successor into the
+    //node and deletes the successor instead, which never has a left child
+    if(node.left != null && node.right != null){
+      Node replaced = node;
+      parent = node;
+      node = node.right;
+      while(node.left != null){
         parent = node;
         node = node.left;
-        continue;
-      }
-      else if(node.data < val){
-        parent = node;
-        node = node.right;
-        continue;
-      }
-
-      //returns if node to delete does not exist
-      if(node == null)
-        return;
-
-      //shows if node is left child or not
-      boolean isLeft = true;
-      if(node.data > parent.data)
-        isLeft = false;
-
-      //case: delete node if it has no children
-      if(node.left == null && node.right == null){
-        if(isLeft)
-          parent.left = null;
-        else
-          parent.right = null;
-        return;
-      }
-
-      //case: replace node with child if it only has one child
-      if(node.left == null){
-        if(isLeft)
-          parent.left = node.right;
-        else
-          parent.right = node.right;
-        return;
-      }
-      else if(node.right == null){
-        if(isLeft)
-          parent.left = node.left;
-        else
-          parent.right = node.left;
-        return;
+        levels++;
       }
+      replaced.data = node.data;
+    }
 
-      //case deleting a node with two children
-      Node replacement = findNextIter(node);
-      int replacementData = replacement.data;
-      int oldData = node.data;
-      node.data = replacementData;
+    //replaces node with its only child, or null if it has no children
+    Node child;
+    if(node.left == null)
+      child = node.right;
+    else
+      child = node.left;
+    size--;
 
-      //prepares to loop to delete in order successor node
-      val = replacementData;
-      if(oldData > val)
-        node = parent.left;
-      else
-        node = parent.right;
-    }
+    if(parent == null)
+      root = child;
+    else if(parent.left == node)
+      parent.left = child;
+    else
+      parent.right = child;
   }
 }
 
@@ -0,0 +1,14 @@
+/*
+Generic key to value Binary Search Tree Map Class
+Written by Giancarlo Calle
+*/
+
+//An AVLMap that never rebalances, so it keeps the shape of its insert order
+public class BSTMap<K extends Comparable<? super K>, V> extends AVLMap<K, V>{
+  //BSTMap constructor
+  public BSTMap(){
+    super(false);
+  }
+}
+
+//end of file
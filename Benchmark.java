@@ -0,0 +1,818 @@
+/*
+Benchmark suite for the trees.
+Written by Giancarlo Calle
+*/
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.function.Supplier;
+
+public class Benchmark{
+
+  //sizes and distributions every operation is run on
+  static final int[] SIZES = {1000, 10000, 100000, 1000000, 10000000};
+  static final String[] DISTRIBUTIONS = {"random", "sorted", "zipfian", "clustered"};
+
+  //iterations thrown away while the JIT warms up, then iterations recorded
+  static final int WARMUP = 3;
+  static final int MEASURE = 5;
+
+  //shortest time an iteration runs, small inputs are repeated to reach it
+  static final long MIN_ITERATION_NS = 100000000L;
+
+  //unbalanced BSTs are O(n^2) to build from sorted input, so they are only
+  //run up to this size on sorted input
+  static final int MAX_DEGENERATE = 10000;
+
+  //keys in a run of the clustered distribution
+  static final int CLUSTER = 100;
+
+  //results written here so the JIT can't remove the work producing them
+  static volatile long sink;
+
+  //an operation being benchmarked. setup() builds the state one iteration
+  //needs and is not timed, run() is timed and returns the operation count
+  interface Case{
+    Object setup(int[] keys);
+    long run(Object state, int[] keys);
+  }
+
+  //a named case, whether it is a BST, which can degenerate, and whether it
+  //only reads its state so one setup can be timed repeatedly
+  static class Named{
+    final String name;
+    final boolean bst;
+    final boolean readOnly;
+    final Case c;
+
+    Named(String name, boolean bst, boolean readOnly, Case c){
+      this.name = name;
+      this.bst = bst;
+      this.readOnly = readOnly;
+      this.c = c;
+    }
+  }
+
+  /*
+  ----------------------------------------------------
+  KEY DISTRIBUTIONS
+  ----------------------------------------------------
+  */
+
+  //returns n keys drawn from distribution
+  static int[] keys(String distribution, int n, Random rand){
+    if(distribution.equals("random"))
+      return Main.getRandomArray(n);
+    if(distribution.equals("sorted"))
+      return Main.getSortedArray(n);
+
+    int[] arr = new int[n];
+    int i;
+    if(distribution.equals("zipfian")){
+      //rank r is drawn with probability about 1/r, then scrambled so the hot
+      //keys are spread over the tree instead of sitting at its left edge
+      double logN = Math.log(n + 1.0);
+      long rank;
+      for(i = 0; i < n; i++){
+        rank = (long) Math.exp(rand.nextDouble() * logN);
+        arr[i] = (int) (rank * 0x9E3779B9L);
+      }
+      return arr;
+    }
+
+    //clustered: runs of consecutive keys starting at random points
+    int start = 0;
+    for(i = 0; i < n; i++){
+      if(i % CLUSTER == 0)
+        start = rand.nextInt();
+      arr[i] = start + (i % CLUSTER);
+    }
+    return arr;
+  }
+
+  /*
+  ----------------------------------------------------
+  CASES
+  ----------------------------------------------------
+  */
+
+  //returns every case, one per operation and tree
+  static List<Named> cases(){
+    List<Named> cases = new ArrayList<>();
+
+    //inserts every key into an empty tree
+    cases.add(new Named("AVL.insertIter", false, false, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        return new AVL();
+      }
+      @Override
+      public long run(Object s, int[] keys){
+        AVL a = (AVL) s;
+        for(int k : keys){
+          a.insertIter(k);
+        }
+        return keys.length;
+      }
+    }));
+    cases.add(new Named("AVL.insertRec", false, false, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        return new AVL();
+      }
+      @Override
+      public long run(Object s, int[] keys){
+        AVL a = (AVL) s;
+        for(int k : keys){
+          a.insertRec(k);
+        }
+        return keys.length;
+      }
+    }));
+    cases.add(new Named("BST.insertIter", true, false, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        return new BST();
+      }
+      @Override
+      public long run(Object s, int[] keys){
+        BST b = (BST) s;
+        for(int k : keys){
+          b.insertIter(k);
+        }
+        return keys.length;
+      }
+    }));
+    cases.add(new Named("BST.insertRec", true, false, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        return new BST(true);
+      }
+      @Override
+      public long run(Object s, int[] keys){
+        BST b = (BST) s;
+        for(int k : keys){
+          b.insertRec(k);
+        }
+        return keys.length;
+      }
+    }));
+
+    //deletes every key from a full tree
+    cases.add(new Named("AVL.deleteIter", false, false, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        return AVL.fromUnsorted(keys);
+      }
+      @Override
+      public long run(Object s, int[] keys){
+        AVL a = (AVL) s;
+        for(int k : keys){
+          a.deleteIter(k);
+        }
+        return keys.length;
+      }
+    }));
+    cases.add(new Named("AVL.deleteRec", false, false, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        return AVL.fromUnsorted(keys);
+      }
+      @Override
+      public long run(Object s, int[] keys){
+        AVL a = (AVL) s;
+        for(int k : keys){
+          a.deleteRec(k);
+        }
+        return keys.length;
+      }
+    }));
+    cases.add(new Named("BST.deleteIter", true, false, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        return buildBST(keys, false);
+      }
+      @Override
+      public long run(Object s, int[] keys){
+        BST b = (BST) s;
+        for(int k : keys){
+          b.deleteIter(k);
+        }
+        return keys.length;
+      }
+    }));
+    cases.add(new Named("BST.deleteRec", true, false, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        return buildBST(keys, true);
+      }
+      @Override
+      public long run(Object s, int[] keys){
+        BST b = (BST) s;
+        for(int k : keys){
+          b.deleteRec(k);
+        }
+        return keys.length;
+      }
+    }));
+
+    //walks the whole tree in order with findNext
+    cases.add(new Named("AVL.findNextIter", false, true, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        return AVL.fromUnsorted(keys);
+      }
+      @Override
+      public long run(Object s, int[] keys){
+        AVL a = (AVL) s;
+        long ops = 0;
+        for(AVL.Node n = a.ceiling(Integer.MIN_VALUE); n != null; n = a.findNextIter(n)){
+          ops++;
+        }
+        return ops;
+      }
+    }));
+    cases.add(new Named("AVL.findNextRec", false, true, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        return AVL.fromUnsorted(keys);
+      }
+      @Override
+      public long run(Object s, int[] keys){
+        AVL a = (AVL) s;
+        long ops = 0;
+        for(AVL.Node n = a.ceiling(Integer.MIN_VALUE); n != null; n = a.findNextRec(n)){
+          ops++;
+        }
+        return ops;
+      }
+    }));
+    cases.add(new Named("BST.findNextIter", true, true, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        return buildBST(keys, false);
+      }
+      @Override
+      public long run(Object s, int[] keys){
+        BST b = (BST) s;
+        long ops = 0;
+        for(BST.Node n = b.ceiling(Integer.MIN_VALUE); n != null; n = b.findNextIter(n)){
+          ops++;
+        }
+        return ops;
+      }
+    }));
+    cases.add(new Named("BST.findNextRec", true, true, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        return buildBST(keys, true);
+      }
+      @Override
+      public long run(Object s, int[] keys){
+        BST b = (BST) s;
+        long ops = 0;
+        for(BST.Node n = b.ceiling(Integer.MIN_VALUE); n != null; n = b.findNextRec(n)){
+          ops++;
+        }
+        return ops;
+      }
+    }));
+
+    //walks the whole tree in order with an iterator
+    cases.add(new Named("AVL.iterator", false, true, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        return AVL.fromUnsorted(keys);
+      }
+      @Override
+      public long run(Object s, int[] keys){
+        PrimitiveIterator.OfInt it = ((AVL) s).iterator();
+        long ops = 0;
+        long sum = 0;
+        while(it.hasNext()){
+          sum += it.nextInt();
+          ops++;
+        }
+        sink = sum;
+        return ops;
+      }
+    }));
+    cases.add(new Named("BST.iterator", true, true, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        return buildBST(keys, false);
+      }
+      @Override
+      public long run(Object s, int[] keys){
+        PrimitiveIterator.OfInt it = ((BST) s).iterator();
+        long ops = 0;
+        long sum = 0;
+        while(it.hasNext()){
+          sum += it.nextInt();
+          ops++;
+        }
+        sink = sum;
+        return ops;
+      }
+    }));
+
+    cases.add(new Named("BPlusTree.iterator", false, true, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        return BPlusTree.fromUnsorted(keys);
+      }
+      @Override
+      public long run(Object s, int[] keys){
+        PrimitiveIterator.OfInt it = ((BPlusTree) s).iterator();
+        long ops = 0;
+        long sum = 0;
+        while(it.hasNext()){
+          sum += it.nextInt();
+          ops++;
+        }
+        sink = sum;
+        return ops;
+      }
+    }));
+
+    //calls findMin once per key
+    cases.add(new Named("AVL.findMinIter", false, true, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        return AVL.fromUnsorted(keys);
+      }
+      @Override
+      public long run(Object s, int[] keys){
+        AVL a = (AVL) s;
+        long sum = 0;
+        for(int k : keys){
+          sum += a.findMinIter();
+        }
+        sink = sum;
+        return keys.length;
+      }
+    }));
+    cases.add(new Named("AVL.findMinRec", false, true, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        return AVL.fromUnsorted(keys);
+      }
+      @Override
+      public long run(Object s, int[] keys){
+        AVL a = (AVL) s;
+        long sum = 0;
+        for(int k : keys){
+          sum += a.findMinRec();
+        }
+        sink = sum;
+        return keys.length;
+      }
+    }));
+    cases.add(new Named("BST.findMinIter", true, true, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        return buildBST(keys, false);
+      }
+      @Override
+      public long run(Object s, int[] keys){
+        BST b = (BST) s;
+        long sum = 0;
+        for(int k : keys){
+          sum += b.findMinIter();
+        }
+        sink = sum;
+        return keys.length;
+      }
+    }));
+    cases.add(new Named("BST.findMinRec", true, true, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        return buildBST(keys, true);
+      }
+      @Override
+      public long run(Object s, int[] keys){
+        BST b = (BST) s;
+        long sum = 0;
+        for(int k : keys){
+          sum += b.findMinRec();
+        }
+        sink = sum;
+        return keys.length;
+      }
+    }));
+
+    //trees that are only used through OrderedIntSet
+    addSetCases(cases, "RedBlack", RedBlack::new);
+    addSetCases(cases, "Treap", Treap::new);
+    addSetCases(cases, "Splay", Splay::new);
+    addSetCases(cases, "BPlusTree", BPlusTree::new);
+    addSetCases(cases, "ConcurrentAVL", ConcurrentAVL::new);
+    addSetCases(cases, "LockFreeSkipList", LockFreeSkipList::new);
+    cases.add(containsCase("AVL", false, AVL::new));
+    cases.add(containsCase("BST", true, BST::new));
+
+    //key to value maps, the specialized ones against AVL/BST.insertIter
+    //and contains above
+    addIntIntCases(cases, "IntIntAVL", false, IntIntAVL::new);
+    addIntIntCases(cases, "IntIntBST", true, IntIntBST::new);
+    addLongObjectCases(cases, "LongObjectAVL", false, LongObjectAVL::new);
+    addLongObjectCases(cases, "LongObjectBST", true, LongObjectBST::new);
+    addGenericMapCases(cases, "AVLMap", false, AVLMap::new);
+    addGenericMapCases(cases, "BSTMap", true, BSTMap::new);
+
+    //makes a new version per insert, old versions are left for the GC
+    cases.add(new Named("PersistentAVL.insert", false, false, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        return PersistentAVL.EMPTY;
+      }
+      @Override
+      public long run(Object s, int[] keys){
+        PersistentAVL t = (PersistentAVL) s;
+        for(int k : keys){
+          t = t.insert(k);
+        }
+        sink = t.getSize();
+        return keys.length;
+      }
+    }));
+    cases.add(new Named("PersistentAVL.contains", false, true, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        PersistentAVL t = PersistentAVL.EMPTY;
+        for(int k : keys){
+          t = t.insert(k);
+        }
+        return t;
+      }
+      @Override
+      public long run(Object s, int[] keys){
+        PersistentAVL t = (PersistentAVL) s;
+        long found = 0;
+        for(int k : keys){
+          if(t.contains(k))
+            found++;
+        }
+        sink = found;
+        return keys.length;
+      }
+    }));
+
+    //sorts a copy of the keys
+    cases.add(new Named("Main.sort", false, false, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        return Arrays.copyOf(keys, keys.length);
+      }
+      @Override
+      public long run(Object s, int[] keys){
+        Main.sort((int[]) s);
+        return keys.length;
+      }
+    }));
+
+    return cases;
+  }
+
+  //adds cases inserting every key into an empty tree, deleting every key
+  //from a full tree and looking up every key in a full tree
+  static void addSetCases(List<Named> cases, String name, Supplier<OrderedIntSet> tree){
+    cases.add(new Named(name + ".insertIter", false, false, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        return tree.get();
+      }
+      @Override
+      public long run(Object s, int[] keys){
+        OrderedIntSet set = (OrderedIntSet) s;
+        for(int k : keys){
+          set.insertIter(k);
+        }
+        return keys.length;
+      }
+    }));
+    cases.add(new Named(name + ".deleteIter", false, false, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        return buildSet(tree, keys);
+      }
+      @Override
+      public long run(Object s, int[] keys){
+        OrderedIntSet set = (OrderedIntSet) s;
+        for(int k : keys){
+          set.deleteIter(k);
+        }
+        return keys.length;
+      }
+    }));
+    cases.add(containsCase(name, false, tree));
+  }
+
+  //adds cases mapping every key to itself in an empty map and getting every
+  //key from a full map
+  static void addIntIntCases(List<Named> cases, String name, boolean bst,
+    Supplier<IntIntAVL> map){
+    cases.add(new Named(name + ".insertIter", bst, false, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        return map.get();
+      }
+      @Override
+      public long run(Object s, int[] keys){
+        IntIntAVL m = (IntIntAVL) s;
+        for(int k : keys){
+          m.insertIter(k, k);
+        }
+        return keys.length;
+      }
+    }));
+    cases.add(new Named(name + ".get", bst, true, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        IntIntAVL m = map.get();
+        for(int k : keys)
+          m.insertIter(k, k);
+        return m;
+      }
+      @Override
+      public long run(Object s, int[] keys){
+        IntIntAVL m = (IntIntAVL) s;
+        long sum = 0;
+        for(int k : keys){
+          sum += m.get(k, 0);
+        }
+        sink = sum;
+        return keys.length;
+      }
+    }));
+  }
+
+  //adds the same cases as addIntIntCases for maps with long keys, which
+  //share one value object so only the tree is measured
+  static void addLongObjectCases(List<Named> cases, String name, boolean bst,
+    Supplier<LongObjectAVL<Object>> map){
+    Object value = new Object();
+    cases.add(new Named(name + ".insertIter", bst, false, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        return map.get();
+      }
+      @Override
+      @SuppressWarnings("unchecked")
+      public long run(Object s, int[] keys){
+        LongObjectAVL<Object> m = (LongObjectAVL<Object>) s;
+        for(int k : keys){
+          m.insertIter(k, value);
+        }
+        return keys.length;
+      }
+    }));
+    cases.add(new Named(name + ".get", bst, true, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        LongObjectAVL<Object> m = map.get();
+        for(int k : keys)
+          m.insertIter(k, value);
+        return m;
+      }
+      @Override
+      @SuppressWarnings("unchecked")
+      public long run(Object s, int[] keys){
+        LongObjectAVL<Object> m = (LongObjectAVL<Object>) s;
+        long found = 0;
+        for(int k : keys){
+          if(m.get(k) != null)
+            found++;
+        }
+        sink = found;
+        return keys.length;
+      }
+    }));
+  }
+
+  //adds the same cases as addIntIntCases for generic maps, which box every
+  //key and value
+  static void addGenericMapCases(List<Named> cases, String name, boolean bst,
+    Supplier<AVLMap<Integer, Integer>> map){
+    cases.add(new Named(name + ".insertIter", bst, false, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        return map.get();
+      }
+      @Override
+      @SuppressWarnings("unchecked")
+      public long run(Object s, int[] keys){
+        AVLMap<Integer, Integer> m = (AVLMap<Integer, Integer>) s;
+        for(int k : keys){
+          m.insertIter(k, k);
+        }
+        return keys.length;
+      }
+    }));
+    cases.add(new Named(name + ".get", bst, true, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        AVLMap<Integer, Integer> m = map.get();
+        for(int k : keys)
+          m.insertIter(k, k);
+        return m;
+      }
+      @Override
+      @SuppressWarnings("unchecked")
+      public long run(Object s, int[] keys){
+        AVLMap<Integer, Integer> m = (AVLMap<Integer, Integer>) s;
+        long sum = 0;
+        Integer v;
+        for(int k : keys){
+          v = m.get(k);
+          if(v != null)
+            sum += v;
+        }
+        sink = sum;
+        return keys.length;
+      }
+    }));
+  }
+
+  //returns a case looking up every key in a full tree. Splay trees reshape
+  //themselves on lookups, which is part of what is being measured
+  static Named containsCase(String name, boolean bst, Supplier<OrderedIntSet> tree){
+    return new Named(name + ".contains", bst, true, new Case(){
+      @Override
+      public Object setup(int[] keys){
+        return buildSet(tree, keys);
+      }
+      @Override
+      public long run(Object s, int[] keys){
+        OrderedIntSet set = (OrderedIntSet) s;
+        long found = 0;
+        for(int k : keys){
+          if(set.contains(k))
+            found++;
+        }
+        sink = found;
+        return keys.length;
+      }
+    });
+  }
+
+  //builds a tree by inserting keys in the order given
+  static OrderedIntSet buildSet(Supplier<OrderedIntSet> tree, int[] keys){
+    OrderedIntSet set = tree.get();
+    for(int k : keys)
+      set.insertIter(k);
+    return set;
+  }
+
+  //builds a BST by inserting keys in the order given, the shape the BST
+  //operations see in practice. recursive is passed on to the BST so the *Rec
+  //cases really recurse
+  static BST buildBST(int[] keys, boolean recursive){
+    BST b = new BST(recursive);
+    for(int k : keys)
+      b.insertIter(k);
+    return b;
+  }
+
+  /*
+  ----------------------------------------------------
+  MEASUREMENT
+  ----------------------------------------------------
+  */
+
+  //returns the bytes allocated by the current thread so far, -1 if the JVM
+  //can't tell
+  static long allocatedBytes(){
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if(bean instanceof com.sun.management.ThreadMXBean)
+      return ((com.sun.management.ThreadMXBean) bean).getCurrentThreadAllocatedBytes();
+    return -1;
+  }
+
+  //returns the number of collections so far across all collectors
+  static long gcCount(){
+    long count = 0;
+    for(GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+      count += Math.max(gc.getCollectionCount(), 0);
+    return count;
+  }
+
+  //runs one case on one input and prints ns/op, its error, B/op and GCs
+  static void measure(Named named, String distribution, int[] keys){
+    double[] nsPerOp = new double[MEASURE];
+    long bytes = 0;
+    long ops = 0;
+    long gcs = 0;
+    int i;
+    for(i = 0; i < WARMUP + MEASURE; i++){
+      //repeats small inputs until the iteration is long enough to time
+      long time = 0;
+      long count = 0;
+      long alloc = 0;
+      long gc = 0;
+      Object state = null;
+      while(time < MIN_ITERATION_NS){
+        if(state == null || !named.readOnly)
+          state = named.c.setup(keys);
+
+        long gcBefore = gcCount();
+        long allocBefore = allocatedBytes();
+        long start = System.nanoTime();
+        count += named.c.run(state, keys);
+        time += System.nanoTime() - start;
+        alloc += allocatedBytes() - allocBefore;
+        gc += gcCount() - gcBefore;
+      }
+
+      //only records iterations after warmup
+      if(i >= WARMUP){
+        nsPerOp[i - WARMUP] = (double) time / Math.max(count, 1);
+        bytes += alloc;
+        ops += count;
+        gcs += gc;
+      }
+    }
+
+    //mean and standard deviation of the recorded iterations
+    double mean = 0;
+    for(double ns : nsPerOp)
+      mean += ns;
+    mean /= MEASURE;
+    double var = 0;
+    for(double ns : nsPerOp)
+      var += (ns - mean) * (ns - mean);
+    double error = Math.sqrt(var / (MEASURE - 1));
+
+    System.out.printf("%-18s %-10s %9d  %12.1f +- %9.1f ns/op  %10.1f B/op  %4d gc%n",
+      named.name, distribution, keys.length, mean, error,
+      (double) bytes / Math.max(ops, 1), gcs);
+  }
+
+  //returns whether value passes a comma separated filter, null passes all
+  static boolean matches(String filter, String value){
+    if(filter == null)
+      return true;
+    for(String f : filter.split(","))
+      if(value.equals(f))
+        return true;
+    return false;
+  }
+
+  //runs every case on every size and distribution. Takes optional filters
+  //op=AVL.insertIter,... size=1000,... dist=random,...
+  public static void main(String arg[]){
+    String ops = null;
+    String sizes = null;
+    String dists = null;
+    for(String a : arg){
+      if(a.startsWith("op="))
+        ops = a.substring(3);
+      else if(a.startsWith("size="))
+        sizes = a.substring(5);
+      else if(a.startsWith("dist="))
+        dists = a.substring(5);
+      else
+        throw new IllegalArgumentException("unknown argument: " + a);
+    }
+
+    System.out.printf("%-18s %-10s %9s  %28s  %15s  %7s%n",
+      "Benchmark", "(dist)", "(size)", "Score +- Error", "alloc", "gc");
+
+    Random rand = new Random(42);
+    List<Named> cases = cases();
+    for(int n : SIZES){
+      if(!matches(sizes, Integer.toString(n)))
+        continue;
+      for(String distribution : DISTRIBUTIONS){
+        if(!matches(dists, distribution))
+          continue;
+        int[] keys = keys(distribution, n, rand);
+        for(Named named : cases){
+          if(!matches(ops, named.name))
+            continue;
+
+          //degenerate BSTs would take hours at large sizes
+          if(named.bst && distribution.equals("sorted") && n > MAX_DEGENERATE){
+            System.out.printf("%-18s %-10s %9d  skipped, O(n^2) on sorted input%n",
+              named.name, distribution, n);
+            continue;
+          }
+
+          try{
+            measure(named, distribution, keys);
+          }
+          catch(StackOverflowError e){
+            System.out.printf("%-18s %-10s %9d  StackOverflowError%n",
+              named.name, distribution, n);
+          }
+        }
+      }
+    }
+  }
+}
+
+//end of file
@@ -0,0 +1,1018 @@
+/*
+Concurrent AVL Tree Class
+Written by Giancarlo Calle
+*/
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.atomic.LongAdder;
+
+//An AVL that any number of threads can read and change at once, built like
+//the optimistic relaxed balance tree of Bronson et al. (SnapTree). Nothing
+//locks the whole tree:
+//  - Every node has a version that a rotation bumps when the node moves
+//    down and its subtree loses keys. A walk reads a child, then checks its
+//    node's version is unchanged, hand over hand, so it never follows a
+//    link that left its range. A walk that loses the race retries from the
+//    last node still valid instead of from the root, and never locks
+//  - A writer only locks the nodes it changes: an insert locks the parent
+//    it links below, a delete the node and its parent, a rotation the
+//    parent, the node, the child moving up and the subtrees changing
+//    parent. Locks are always taken from parent to child, so they can't
+//    deadlock
+//  - A delete of a node with two children only marks it as not present.
+//    The routing node keeps guiding walks until rebalancing finds it with
+//    one child and unlinks it, so deletes never move a successor's key
+//  - Heights are fixed and rotations done after each change, each one
+//    locally and one level at a time. Balance can be briefly off by more
+//    than one while writers overlap, and is restored once they stop
+//Writers on different parts of the tree run in parallel, so writes scale
+//with threads like reads do
+public class ConcurrentAVL implements OrderedIntSet{
+  //Node struct used in the tree. Heights of null nodes are 0, leaves are 1
+  static final class Node{
+    final int key;
+
+    //false for a routing node whose key was deleted
+    volatile boolean present;
+
+    volatile int height;
+    volatile long version;
+    volatile Node parent;
+    volatile Node left;
+    volatile Node right;
+
+    //Node constructor
+    Node(int key, boolean present, Node parent){
+      this.key = key;
+      this.present = present;
+      this.height = 1;
+      this.version = 0;
+      this.parent = parent;
+    }
+  }
+
+  //version of a node that was unlinked, walks reaching it must go back up
+  private static final long UNLINKED = 1;
+
+  //set while a rotation moves the node down, cleared by adding SHRINK_INCR
+  //so the version after differs from the one before
+  private static final long SHRINKING = 2;
+  private static final long SHRINK_INCR = 4;
+
+  //times a walk rereads a shrinking node before waiting for its lock
+  private static final int SPIN_COUNT = 100;
+
+  //results of the walks that can't be an int key
+  private static final long NONE = Long.MIN_VALUE;
+  private static final long RETRY = Long.MAX_VALUE;
+  private static final long FOUND = Long.MAX_VALUE - 1;
+
+  //kinds of nearest key walks
+  private static final int FLOOR = 0;
+  private static final int CEILING = 1;
+  private static final int LOWER = 2;
+  private static final int HIGHER = 3;
+
+  //results of nodeCondition() that aren't a new height
+  private static final int UNLINK_REQUIRED = -1;
+  private static final int REBALANCE_REQUIRED = -2;
+  private static final int NOTHING_REQUIRED = -3;
+
+  //sentinel above the root, its right child is the root. Its version never
+  //changes and it is never rebalanced
+  private final Node rootHolder = new Node(0, false, null);
+
+  //number of keys in the tree, exact whenever no writer is running
+  private final LongAdder size = new LongAdder();
+  @Override
+  public int getSize(){
+    return (int) size.sum();
+  }
+
+  //records the amount of levels of the tree traversed w/ methods, added
+  //once per walk so threads don't contend on it
+  private final LongAdder levels = new LongAdder();
+  @Override
+  public long getLevels(){
+    return levels.sum();
+  }
+
+  /*
+  ----------------------------------------------------
+  NODE HELPERS
+  ----------------------------------------------------
+  */
+
+  //returns the child of node on the right if right is set, else the left
+  private static Node child(Node node, boolean right){
+    return (right ? node.right : node.left);
+  }
+
+  //returns the cached height of a node, null nodes are 0
+  private static int height(Node node){
+    return (node == null ? 0 : node.height);
+  }
+
+  private static long beginShrink(long version){
+    return version | SHRINKING;
+  }
+
+  private static long endShrink(long version){
+    return version + SHRINK_INCR;
+  }
+
+  //Waits for a rotation moving node down to finish. Spins a little since
+  //rotations are short, then waits on the node's lock, which the rotation
+  //holds
+  private static void waitUntilNotChanging(Node node){
+    long version = node.version;
+    if((version & SHRINKING) == 0)
+      return;
+    int i = 0;
+    while(node.version == version && i < SPIN_COUNT)
+      i++;
+    if(i == SPIN_COUNT){
+      synchronized(node){
+        //only waits for the rotation to let go of node
+      }
+    }
+  }
+
+  /*
+  ----------------------------------------------------
+  READ METHODS
+  ----------------------------------------------------
+  */
+
+  //returns whether val is in the tree
+  @Override
+  public boolean contains(int val){
+    return attemptGet(val, rootHolder, true, 0, 0) == FOUND;
+  }
+
+  //Looks for val below node on the given side. nodeV is the version node
+  //had when the walk checked it was still linked. Returns FOUND, NONE, or
+  //RETRY if node changed and the walk must go back to node's parent
+  private long attemptGet(int val, Node node, boolean right, long nodeV, int depth){
+    Node child;
+    long childV;
+    long result;
+    while(true){
+      child = child(node, right);
+      if(node.version != nodeV)
+        return RETRY;
+      if(child == null){
+        levels.add(depth);
+        return NONE;
+      }
+      if(child.key == val){
+        levels.add(depth);
+        return (child.present ? FOUND : NONE);
+      }
+
+      //waits out a rotation of child, or follows it once node is known to
+      //still lead to it
+      childV = child.version;
+      if((childV & SHRINKING) != 0)
+        waitUntilNotChanging(child);
+      else if(childV != UNLINKED && child == child(node, right)){
+        if(node.version != nodeV)
+          return RETRY;
+        result = attemptGet(val, child, val > child.key, childV, depth + 1);
+        if(result != RETRY)
+          return result;
+      }
+    }
+  }
+
+  //returns whether key fits a nearest key walk of kind for val
+  private static boolean fits(int key, int val, int kind){
+    if(kind == FLOOR)
+      return key <= val;
+    if(kind == LOWER)
+      return key < val;
+    if(kind == CEILING)
+      return key >= val;
+    return key > val;
+  }
+
+  //Finds the nearest key of kind for val below node on the given side:
+  //the biggest key that fits for FLOOR and LOWER, the smallest for CEILING
+  //and HIGHER. Returns the key, NONE, or RETRY like attemptGet()
+  private long attemptNearest(int val, int kind, Node node, boolean right,
+    long nodeV, int depth){
+    Node child;
+    long childV;
+    long result;
+    while(true){
+      child = child(node, right);
+      if(node.version != nodeV)
+        return RETRY;
+      if(child == null){
+        levels.add(depth);
+        return NONE;
+      }
+
+      childV = child.version;
+      if((childV & SHRINKING) != 0)
+        waitUntilNotChanging(child);
+      else if(childV != UNLINKED && child == child(node, right)){
+        if(node.version != nodeV)
+          return RETRY;
+        result = nearestAt(val, kind, child, childV, depth + 1);
+        if(result != RETRY)
+          return result;
+      }
+    }
+  }
+
+  //attemptNearest() at node, whose version was nodeV. A key that fits may
+  //still have a closer one on its far side, and a routing node that fits
+  //sends the walk back to its near side, so one walk can backtrack
+  private long nearestAt(int val, int kind, Node node, long nodeV, int depth){
+    boolean max = (kind == FLOOR || kind == LOWER);
+    int key = node.key;
+
+    //a key that doesn't fit only has keys that fit on its near side
+    if(!fits(key, val, kind))
+      return attemptNearest(val, kind, node, !max, nodeV, depth);
+
+    //looks past node for a closer key, unless node is val itself
+    long result;
+    if(key != val){
+      result = attemptNearest(val, kind, node, max, nodeV, depth);
+      if(result != NONE)
+        return result;
+    }
+    boolean present = node.present;
+    if(node.version != nodeV)
+      return RETRY;
+    if(present){
+      levels.add(depth);
+      return key;
+    }
+    return attemptNearest(val, kind, node, !max, nodeV, depth);
+  }
+
+  //runs a nearest key walk from the root
+  private long nearest(int val, int kind){
+    long result;
+    do{
+      result = attemptNearest(val, kind, rootHolder, true, 0, 0);
+    }while(result == RETRY);
+    return result;
+  }
+
+  //turns a walk result into a key, null if none exists
+  private static Integer toKey(long result){
+    return (result == NONE ? null : (int) result);
+  }
+
+  //turns a walk result into a key, missing if none exists
+  private static int toKey(long result, int missing){
+    return (result == NONE ? missing : (int) result);
+  }
+
+  //The nearest key lookups return a key that was in the tree at some point
+  //during the call
+
+  //returns the biggest key smaller than or equal to val, null if none
+  Integer floor(int val){
+    return toKey(nearest(val, FLOOR));
+  }
+
+  //returns the smallest key bigger than or equal to val, null if none
+  Integer ceiling(int val){
+    return toKey(nearest(val, CEILING));
+  }
+
+  //returns the biggest key strictly smaller than val, null if none
+  Integer lower(int val){
+    return toKey(nearest(val, LOWER));
+  }
+
+  //returns the smallest key strictly bigger than val, null if none
+  Integer higher(int val){
+    return toKey(nearest(val, HIGHER));
+  }
+
+  //finds the smallest key that is bigger than val, null if none
+  @Override
+  public Integer findNextIter(int val){
+    return higher(val);
+  }
+
+  //finds the biggest key that is smaller than val, null if none
+  @Override
+  public Integer findPrevIter(int val){
+    return lower(val);
+  }
+
+  //finds the minimum number in the tree
+  @Override
+  public int findMinIter(){
+    long result = nearest(Integer.MIN_VALUE, CEILING);
+    if(result == NONE)
+      throw new NoSuchElementException();
+    return (int) result;
+  }
+
+  //finds the maximum number in the tree
+  @Override
+  public int findMaxIter(){
+    long result = nearest(Integer.MAX_VALUE, FLOOR);
+    if(result == NONE)
+      throw new NoSuchElementException();
+    return (int) result;
+  }
+
+  //The same lookups returning missing instead of null when there is no
+  //such key, so hot read paths don't box every key found
+
+  int floor(int val, int missing){
+    return toKey(nearest(val, FLOOR), missing);
+  }
+
+  int ceiling(int val, int missing){
+    return toKey(nearest(val, CEILING), missing);
+  }
+
+  int lower(int val, int missing){
+    return toKey(nearest(val, LOWER), missing);
+  }
+
+  int higher(int val, int missing){
+    return toKey(nearest(val, HIGHER), missing);
+  }
+
+  int findMinIter(int missing){
+    return toKey(nearest(Integer.MIN_VALUE, CEILING), missing);
+  }
+
+  int findMaxIter(int missing){
+    return toKey(nearest(Integer.MAX_VALUE, FLOOR), missing);
+  }
+
+  /*
+  ----------------------------------------------------
+  WRITE METHODS
+  ----------------------------------------------------
+  */
+
+  //inserts val if it is not in the tree yet
+  @Override
+  public void insertIter(int val){
+    long result;
+    do{
+      result = attemptInsert(val, rootHolder, true, 0, 0);
+    }while(result == RETRY);
+  }
+
+  //Inserts val below node on the given side, walking like attemptGet().
+  //Returns FOUND once val is in the tree, or RETRY
+  private long attemptInsert(int val, Node node, boolean right, long nodeV, int depth){
+    Node child;
+    long childV;
+    long result;
+    while(true){
+      child = child(node, right);
+      if(node.version != nodeV)
+        return RETRY;
+
+      if(child == null)
+        result = attemptLink(val, node, right, nodeV, depth);
+      else if(child.key == val)
+        result = attemptRevive(child, depth);
+      else{
+        childV = child.version;
+        if((childV & SHRINKING) != 0){
+          waitUntilNotChanging(child);
+          result = RETRY;
+        }
+        else if(childV != UNLINKED && child == child(node, right)){
+          if(node.version != nodeV)
+            return RETRY;
+          result = attemptInsert(val, child, val > child.key, childV, depth + 1);
+        }
+        else
+          result = RETRY;
+      }
+
+      if(result != RETRY)
+        return result;
+    }
+  }
+
+  //links a new node for val below node, if node hasn't changed and the
+  //side is still empty, then rebalances up from node
+  private long attemptLink(int val, Node node, boolean right, long nodeV, int depth){
+    synchronized(node){
+      if(node.version != nodeV || child(node, right) != null)
+        return RETRY;
+      if(right)
+        node.right = new Node(val, true, node);
+      else
+        node.left = new Node(val, true, node);
+    }
+    size.increment();
+    levels.add(depth);
+    fixHeightAndRebalance(node);
+    return FOUND;
+  }
+
+  //makes a routing node holding val present again
+  private long attemptRevive(Node node, int depth){
+    if(node.present){
+      levels.add(depth);
+      return FOUND;
+    }
+    synchronized(node){
+      if(node.version == UNLINKED)
+        return RETRY;
+      if(node.present)
+        return FOUND;
+      node.present = true;
+    }
+    size.increment();
+    levels.add(depth);
+    return FOUND;
+  }
+
+  //deletes val if it is in the tree
+  @Override
+  public void deleteIter(int val){
+    long result;
+    do{
+      result = attemptDelete(val, rootHolder, true, 0, 0);
+    }while(result == RETRY);
+  }
+
+  //Deletes val below node on the given side, walking like attemptGet().
+  //Returns FOUND if val was deleted, NONE if it wasn't there, or RETRY
+  private long attemptDelete(int val, Node node, boolean right, long nodeV, int depth){
+    Node child;
+    long childV;
+    long result;
+    while(true){
+      child = child(node, right);
+      if(node.version != nodeV)
+        return RETRY;
+
+      if(child == null){
+        levels.add(depth);
+        return NONE;
+      }
+      if(child.key == val)
+        result = attemptRemoveNode(node, child, depth);
+      else{
+        childV = child.version;
+        if((childV & SHRINKING) != 0){
+          waitUntilNotChanging(child);
+          result = RETRY;
+        }
+        else if(childV != UNLINKED && child == child(node, right)){
+          if(node.version != nodeV)
+            return RETRY;
+          result = attemptDelete(val, child, val > child.key, childV, depth + 1);
+        }
+        else
+          result = RETRY;
+      }
+
+      if(result != RETRY)
+        return result;
+    }
+  }
+
+  //returns whether node has at most one child and can be spliced out
+  private static boolean canUnlink(Node node){
+    return node.left == null || node.right == null;
+  }
+
+  //Deletes node, a child of parent. A node with two children is only
+  //marked as routing, locking just itself. Otherwise parent and node are
+  //locked and node is unlinked, then the tree is rebalanced up from parent
+  private long attemptRemoveNode(Node parent, Node node, int depth){
+    if(!node.present){
+      levels.add(depth);
+      return NONE;
+    }
+
+    if(!canUnlink(node)){
+      synchronized(node){
+        if(node.version == UNLINKED || canUnlink(node))
+          return RETRY;
+        if(!node.present)
+          return NONE;
+        node.present = false;
+      }
+    }
+    else{
+      synchronized(parent){
+        if(parent.version == UNLINKED || node.parent != parent)
+          return RETRY;
+        synchronized(node){
+          if(node.version == UNLINKED)
+            return RETRY;
+          if(!node.present)
+            return NONE;
+          node.present = false;
+          if(canUnlink(node))
+            splice(parent, node);
+        }
+      }
+      fixHeightAndRebalance(parent);
+    }
+    size.decrement();
+    levels.add(depth);
+    return FOUND;
+  }
+
+  //Replaces node, which has at most one child, with that child below
+  //parent and marks it unlinked. Must hold both locks. The child is locked
+  //too while its parent changes, see rotateRight_nl()
+  private static void splice(Node parent, Node node){
+    Node child = (node.left == null ? node.right : node.left);
+    synchronized(child != null ? child : node){
+      if(parent.left == node)
+        parent.left = child;
+      else
+        parent.right = child;
+      if(child != null)
+        child.parent = parent;
+      node.version = UNLINKED;
+    }
+  }
+
+  /*
+  ----------------------------------------------------
+  BALANCING
+  ----------------------------------------------------
+  */
+
+  //Returns what node needs: UNLINK_REQUIRED for a routing node with at
+  //most one child, REBALANCE_REQUIRED if its children's heights differ by
+  //more than one, its new height if only that is stale, or
+  //NOTHING_REQUIRED. Read without locks, so it is only a hint
+  private static int nodeCondition(Node node){
+    Node left = node.left;
+    Node right = node.right;
+    if((left == null || right == null) && !node.present)
+      return UNLINK_REQUIRED;
+
+    int hL = height(left);
+    int hR = height(right);
+    int bf = hL - hR;
+    if(bf < -1 || bf > 1)
+      return REBALANCE_REQUIRED;
+    int hRepl = (hL > hR ? hL : hR) + 1;
+    return (node.height != hRepl ? hRepl : NOTHING_REQUIRED);
+  }
+
+  //Fixes heights, rotates and unlinks routing nodes from node up, one node
+  //at a time with only the locks that node needs, until nothing changes.
+  //A rotation can hand back a node below the subtree it rotated while the
+  //subtree's new top still needs fixing and its parent a new height, and
+  //the walk up from that node may stop before reaching them, so both are
+  //kept and checked again after
+  private void fixHeightAndRebalance(Node node){
+    Node parent;
+    Node top;
+    Node next;
+    ArrayDeque<Node> pending = null;
+    int condition;
+    while(true){
+      if(node == null || node.parent == null || node.version == UNLINKED
+        || (condition = nodeCondition(node)) == NOTHING_REQUIRED){
+        if(pending == null || pending.isEmpty())
+          return;
+        node = pending.pop();
+        continue;
+      }
+
+      if(condition != UNLINK_REQUIRED && condition != REBALANCE_REQUIRED){
+        synchronized(node){
+          node = fixHeight_nl(node);
+        }
+      }
+      else{
+        parent = node.parent;
+        synchronized(parent){
+          if(parent.version != UNLINKED && node.parent == parent){
+            boolean right = (parent.right == node);
+            synchronized(node){
+              next = rebalance_nl(parent, node);
+            }
+            top = child(parent, right);
+            if(top != null && next != top && isBelow(next, top, parent)){
+              if(pending == null)
+                pending = new ArrayDeque<>();
+              pending.push(parent);
+              pending.push(top);
+            }
+            node = next;
+          }
+        }
+      }
+    }
+  }
+
+  //returns whether node is a descendant of top, which is a child of parent
+  private static boolean isBelow(Node node, Node top, Node parent){
+    if(node == null)
+      return false;
+    for(Node curr = node.parent; curr != null && curr != parent; curr = curr.parent){
+      if(curr == top)
+        return true;
+    }
+    return false;
+  }
+
+  //The methods ending in _nl expect their caller to hold the locks of the
+  //nodes they are given, and return the next node to fix, null if none
+
+  //updates node's height if that is all it needs, holding node's lock
+  private static Node fixHeight_nl(Node node){
+    int condition = nodeCondition(node);
+    if(condition == REBALANCE_REQUIRED || condition == UNLINK_REQUIRED)
+      return node;
+    if(condition == NOTHING_REQUIRED)
+      return null;
+    node.height = condition;
+    return node.parent;
+  }
+
+  //unlinks, rotates or fixes the height of node, holding parent and node
+  private static Node rebalance_nl(Node parent, Node node){
+    Node left = node.left;
+    Node right = node.right;
+    if((left == null || right == null) && !node.present){
+      if(attemptUnlink_nl(parent, node))
+        return fixHeight_nl(parent);
+      return node;
+    }
+
+    int hL = height(left);
+    int hR = height(right);
+    int bf = hL - hR;
+    if(bf > 1)
+      return rebalanceToRight_nl(parent, node, left, hR);
+    if(bf < -1)
+      return rebalanceToLeft_nl(parent, node, right, hL);
+    int hRepl = (hL > hR ? hL : hR) + 1;
+    if(hRepl != node.height){
+      node.height = hRepl;
+      return fixHeight_nl(parent);
+    }
+    return null;
+  }
+
+  //splices out the routing node below parent if it still has at most one
+  //child, holding parent and node
+  private static boolean attemptUnlink_nl(Node parent, Node node){
+    if(parent.left != node && parent.right != node)
+      return false;
+    if(!canUnlink(node))
+      return false;
+    splice(parent, node);
+    return true;
+  }
+
+  //Node is left heavy. Locks its left child and rotates node right, first
+  //rotating the child left if its inner subtree is the taller one
+  private static Node rebalanceToRight_nl(Node parent, Node node, Node nL, int hR){
+    synchronized(nL){
+      int hL = nL.height;
+      if(hL - hR <= 1)
+        return node;
+      Node nLR = nL.right;
+      int hLL = height(nL.left);
+      int hLR = height(nLR);
+      if(hLL >= hLR)
+        return rotateRight_nl(parent, node, nL, hR, hLL, nLR);
+
+      synchronized(nLR){
+        hLR = nLR.height;
+        if(hLL >= hLR)
+          return rotateRight_nl(parent, node, nL, hR, hLL, nLR);
+        int hLRL = height(nLR.left);
+        int bf = hLL - hLRL;
+        if(bf >= -1 && bf <= 1 && !((hLL == 0 || hLRL == 0) && !nL.present))
+          return rotateRightOverLeft_nl(parent, node, nL, hR, hLL, nLR);
+
+        //the double rotation would leave nL unbalanced or a routing node
+        //with one child, so only nL is rotated and fixed now, and
+        //fixHeightAndRebalance() comes back to node after
+        return rotateLeft_nl(node, nL, hLL, nLR, nLR.left, height(nLR.right));
+      }
+    }
+  }
+
+  //mirror of rebalanceToRight_nl() for a right heavy node
+  private static Node rebalanceToLeft_nl(Node parent, Node node, Node nR, int hL){
+    synchronized(nR){
+      int hR = nR.height;
+      if(hL - hR >= -1)
+        return node;
+      Node nRL = nR.left;
+      int hRL = height(nRL);
+      int hRR = height(nR.right);
+      if(hRR >= hRL)
+        return rotateLeft_nl(parent, node, hL, nR, nRL, hRR);
+
+      synchronized(nRL){
+        hRL = nRL.height;
+        if(hRR >= hRL)
+          return rotateLeft_nl(parent, node, hL, nR, nRL, hRR);
+        int hRLR = height(nRL.right);
+        int bf = hRR - hRLR;
+        if(bf >= -1 && bf <= 1 && !((hRR == 0 || hRLR == 0) && !nR.present))
+          return rotateLeftOverRight_nl(parent, node, hL, nR, nRL, hRR);
+
+        return rotateRight_nl(node, nR, nRL, hRR, height(nRL.left), nRL.right);
+      }
+    }
+  }
+
+  //Rotates node right below parent, holding parent, node and nL. Node moves
+  //down and loses nL's subtree, so its version marks it shrinking meanwhile.
+  //nLR changes parent, so it is locked too: a thread fixing its height
+  //reads its parent under that lock and then always fixes the right one.
+  //Returns whichever of the two still needs fixing, else moves on to parent
+  private static Node rotateRight_nl(Node parent, Node node, Node nL, int hR,
+    int hLL, Node nLR){
+    synchronized(nLR != null ? nLR : node){
+      long nodeV = node.version;
+      Node parentL = parent.left;
+      int hLR = height(nLR);
+
+      node.version = beginShrink(nodeV);
+      node.left = nLR;
+      if(nLR != null)
+        nLR.parent = node;
+      nL.right = node;
+      node.parent = nL;
+      if(parentL == node)
+        parent.left = nL;
+      else
+        parent.right = nL;
+      nL.parent = parent;
+
+      int hNode = (hLR > hR ? hLR : hR) + 1;
+      node.height = hNode;
+      nL.height = (hLL > hNode ? hLL : hNode) + 1;
+      node.version = endShrink(nodeV);
+
+      int bfNode = hLR - hR;
+      if(bfNode < -1 || bfNode > 1)
+        return node;
+      if((nLR == null || hR == 0) && !node.present)
+        return node;
+      int bfL = hLL - hNode;
+      if(bfL < -1 || bfL > 1)
+        return nL;
+      if(hLL == 0 && !nL.present)
+        return nL;
+      return fixHeight_nl(parent);
+    }
+  }
+
+  //mirror of rotateRight_nl()
+  private static Node rotateLeft_nl(Node parent, Node node, int hL, Node nR,
+    Node nRL, int hRR){
+    synchronized(nRL != null ? nRL : node){
+      long nodeV = node.version;
+      Node parentL = parent.left;
+      int hRL = height(nRL);
+
+      node.version = beginShrink(nodeV);
+      node.right = nRL;
+      if(nRL != null)
+        nRL.parent = node;
+      nR.left = node;
+      node.parent = nR;
+      if(parentL == node)
+        parent.left = nR;
+      else
+        parent.right = nR;
+      nR.parent = parent;
+
+      int hNode = (hL > hRL ? hL : hRL) + 1;
+      node.height = hNode;
+      nR.height = (hNode > hRR ? hNode : hRR) + 1;
+      node.version = endShrink(nodeV);
+
+      int bfNode = hRL - hL;
+      if(bfNode < -1 || bfNode > 1)
+        return node;
+      if((nRL == null || hL == 0) && !node.present)
+        return node;
+      int bfR = hRR - hNode;
+      if(bfR < -1 || bfR > 1)
+        return nR;
+      if(hRR == 0 && !nR.present)
+        return nR;
+      return fixHeight_nl(parent);
+    }
+  }
+
+  //Double rotation lifting nLR above both node and nL, holding parent,
+  //node, nL and nLR. Node and nL both move down and shrink. Both children
+  //of nLR change parent and are locked like in rotateRight_nl()
+  private static Node rotateRightOverLeft_nl(Node parent, Node node, Node nL,
+    int hR, int hLL, Node nLR){
+    Node nLRL = nLR.left;
+    Node nLRR = nLR.right;
+    synchronized(nLRL != null ? nLRL : nLR){
+      synchronized(nLRR != null ? nLRR : nLR){
+        long nodeV = node.version;
+        long leftV = nL.version;
+        Node parentL = parent.left;
+        int hLRL = height(nLRL);
+        int hLRR = height(nLRR);
+
+        node.version = beginShrink(nodeV);
+        nL.version = beginShrink(leftV);
+        node.left = nLRR;
+        if(nLRR != null)
+          nLRR.parent = node;
+        nL.right = nLRL;
+        if(nLRL != null)
+          nLRL.parent = nL;
+        nLR.left = nL;
+        nL.parent = nLR;
+        nLR.right = node;
+        node.parent = nLR;
+        if(parentL == node)
+          parent.left = nLR;
+        else
+          parent.right = nLR;
+        nLR.parent = parent;
+
+        int hNode = (hLRR > hR ? hLRR : hR) + 1;
+        node.height = hNode;
+        int hLeft = (hLL > hLRL ? hLL : hLRL) + 1;
+        nL.height = hLeft;
+        nLR.height = (hLeft > hNode ? hLeft : hNode) + 1;
+        node.version = endShrink(nodeV);
+        nL.version = endShrink(leftV);
+
+        int bfNode = hLRR - hR;
+        if(bfNode < -1 || bfNode > 1)
+          return node;
+        if((nLRR == null || hR == 0) && !node.present)
+          return node;
+        int bfLeft = hLL - hLRL;
+        if(bfLeft < -1 || bfLeft > 1)
+          return nL;
+        if((nLRL == null || hLL == 0) && !nL.present)
+          return nL;
+        int bfLR = hLeft - hNode;
+        if(bfLR < -1 || bfLR > 1)
+          return nLR;
+        return fixHeight_nl(parent);
+      }
+    }
+  }
+
+  //mirror of rotateRightOverLeft_nl()
+  private static Node rotateLeftOverRight_nl(Node parent, Node node, int hL,
+    Node nR, Node nRL, int hRR){
+    Node nRLL = nRL.left;
+    Node nRLR = nRL.right;
+    synchronized(nRLL != null ? nRLL : nRL){
+      synchronized(nRLR != null ? nRLR : nRL){
+        long nodeV = node.version;
+        long rightV = nR.version;
+        Node parentL = parent.left;
+        int hRLL = height(nRLL);
+        int hRLR = height(nRLR);
+
+        node.version = beginShrink(nodeV);
+        nR.version = beginShrink(rightV);
+        node.right = nRLL;
+        if(nRLL != null)
+          nRLL.parent = node;
+        nR.left = nRLR;
+        if(nRLR != null)
+          nRLR.parent = nR;
+        nRL.right = nR;
+        nR.parent = nRL;
+        nRL.left = node;
+        node.parent = nRL;
+        if(parentL == node)
+          parent.left = nRL;
+        else
+          parent.right = nRL;
+        nRL.parent = parent;
+
+        int hNode = (hL > hRLL ? hL : hRLL) + 1;
+        node.height = hNode;
+        int hRight = (hRLR > hRR ? hRLR : hRR) + 1;
+        nR.height = hRight;
+        nRL.height = (hNode > hRight ? hNode : hRight) + 1;
+        node.version = endShrink(nodeV);
+        nR.version = endShrink(rightV);
+
+        int bfNode = hRLL - hL;
+        if(bfNode < -1 || bfNode > 1)
+          return node;
+        if((nRLL == null || hL == 0) && !node.present)
+          return node;
+        int bfRight = hRLR - hRR;
+        if(bfRight < -1 || bfRight > 1)
+          return nR;
+        if((nRLR == null || hRR == 0) && !nR.present)
+          return nR;
+        int bfRL = hNode - hRight;
+        if(bfRL < -1 || bfRL > 1)
+          return nRL;
+        return fixHeight_nl(parent);
+      }
+    }
+  }
+
+  /*
+  ----------------------------------------------------
+  ITERATORS
+  ----------------------------------------------------
+  */
+
+  //writes the tree into arr in order starting at index from, returns the
+  //number written. Writers running at the same time may or may not be seen
+  @Override
+  public int inorderIter(int[] arr, int from){
+    int i = from;
+    PrimitiveIterator.OfInt it = iterator();
+    while(it.hasNext()){
+      arr[i] = it.nextInt();
+      i++;
+    }
+    return i - from;
+  }
+
+  //Iterator over the keys in order. Each step looks up the next key after
+  //the last one from the root, O(log n), so rotations and unlinks under it
+  //can't make it skip or repeat keys. Keys added or deleted meanwhile may or
+  //may not be seen
+  private class Cursor implements PrimitiveIterator.OfInt{
+    private long next;
+
+    Cursor(){
+      next = nearest(Integer.MIN_VALUE, CEILING);
+    }
+
+    @Override
+    public boolean hasNext(){
+      return next != NONE;
+    }
+
+    @Override
+    public int nextInt(){
+      if(next == NONE)
+        throw new NoSuchElementException();
+      int key = (int) next;
+      next = nearest(key, HIGHER);
+      return key;
+    }
+  }
+
+  //iterates the keys from smallest to biggest
+  @Override
+  public PrimitiveIterator.OfInt iterator(){
+    return new Cursor();
+  }
+
+  //returns whether the tree is a valid AVL holding its size in keys. Only
+  //meaningful while no writer is running, for tests and debugging
+  boolean isBalanced(){
+    int[] count = new int[1];
+    return checkSubtree(rootHolder.right, rootHolder, Long.MIN_VALUE, Long.MAX_VALUE,
+      count) >= 0 && count[0] == getSize();
+  }
+
+  //returns the height of node's subtree if it is ordered within (lo, hi),
+  //balanced, linked to parent and without removable routing nodes, -1 if
+  //not. Counts the present keys in count[0]
+  private static int checkSubtree(Node node, Node parent, long lo, long hi, int[] count){
+    if(node == null)
+      return 0;
+    if(node.parent != parent || node.key <= lo || node.key >= hi)
+      return -1;
+    if(!node.present && canUnlink(node))
+      return -1;
+    int hL = checkSubtree(node.left, node, lo, node.key, count);
+    int hR = checkSubtree(node.right, node, node.key, hi, count);
+    if(hL < 0 || hR < 0 || hL - hR > 1 || hR - hL > 1)
+      return -1;
+    int height = (hL > hR ? hL : hR) + 1;
+    if(height != node.height)
+      return -1;
+    if(node.present)
+      count[0]++;
+    return height;
+  }
+}
+
+//end of file
@@ -0,0 +1,522 @@
+/*
+Durable AVL Tree Class
+Written by Giancarlo Calle
+*/
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+public class DurableAVL implements AutoCloseable{
+  //A directory holding a snapshot of the tree in the MappedIntSet format and
+  //a write ahead log (WAL) of the changes made since, plus the WAL before it
+  //while a new snapshot is being written. The WAL is a list of batches,
+  //little endian: the number of records and the CRC32 of the records, then
+  //each record as an op byte and a key int. A batch cut short by a crash
+  //fails its CRC and is dropped with everything after it. Reads see changes
+  //that are not committed to the WAL yet, see READ METHODS
+  static final String SNAPSHOT = "snapshot";
+  static final String WAL = "wal";
+  static final String OLD_WAL = "wal.old";
+  static final byte INSERT = 1;
+  static final byte DELETE = 2;
+  static final int BATCH_HEADER_BYTES = 8;
+  static final int RECORD_BYTES = 5;
+
+  //most records written and forced to disk together
+  static final int BATCH_OPS = 4096;
+
+  //a snapshot is taken once the WAL has more records than this and than the
+  //tree has keys, so replaying the WAL never costs more than loading the tree
+  static final long SNAPSHOT_MIN_OPS = 1 << 20;
+
+  private final Path dir;
+
+  //WAL being appended to, only used holding flushLock. A snapshot moves it
+  //to OLD_WAL and starts a new one
+  private FileChannel wal;
+
+  //tree being made durable, only used while holding this
+  private final AVL tree;
+
+  //Records are added to pending while holding this. A flush swaps pending
+  //with spare and writes spare while holding flushLock only, so changes keep
+  //going into pending while the disk is busy, and every thread waiting for
+  //its change is covered by the next flush: one write and fsync for all of
+  //them (group commit)
+  private ByteBuffer pending;
+  private ByteBuffer spare;
+  private int pendingOps;
+  private final Object flushLock = new Object();
+
+  //records added to pending so far, only used holding this, and records
+  //known to be on disk, only written holding flushLock. A change returns
+  //once durableOps covers its record
+  private long appendedOps;
+  private volatile long durableOps;
+
+  //records in the WAL since the last snapshot, only used holding flushLock
+  private long walOps;
+
+  //Thread taking the snapshot the writers asked for, null if none. Only
+  //used holding flushLock. The writer that crosses the threshold starts it
+  //and returns, so no change waits for the whole tree to be written
+  private Thread snapshotter;
+
+  //one snapshot at a time, taken before flushLock
+  private final Object snapshotLock = new Object();
+
+  //set by close() holding flushLock, after which nothing touches the WAL
+  private boolean closed;
+
+  //first error writing the WAL. The tree may then hold changes the WAL
+  //doesn't, so every later change and sync fails instead of acting durable
+  private volatile IOException failure;
+
+  //DurableAVL constructor, use open()
+  private DurableAVL(Path dir, FileChannel wal, AVL tree, long walOps){
+    this.dir = dir;
+    this.wal = wal;
+    this.tree = tree;
+    this.walOps = walOps;
+    int bytes = BATCH_HEADER_BYTES + BATCH_OPS * RECORD_BYTES;
+    this.pending = ByteBuffer.allocateDirect(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    this.spare = ByteBuffer.allocateDirect(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    this.pending.position(BATCH_HEADER_BYTES);
+    this.pendingOps = 0;
+  }
+
+  /*
+  ----------------------------------------------------
+  OPENING AND RECOVERY
+  ----------------------------------------------------
+  */
+
+  //opens the tree stored in dir, creating dir if needed. Loads the snapshot
+  //and replays the old and current WAL over it, dropping a batch torn by a
+  //crash
+  static DurableAVL open(Path dir) throws IOException{
+    Files.createDirectories(dir);
+
+    //a snapshot left half written by a crash was never renamed into place
+    Files.deleteIfExists(dir.resolve(SNAPSHOT + ".tmp"));
+    Path snapshot = dir.resolve(SNAPSHOT);
+    AVL tree;
+    if(Files.exists(snapshot))
+      tree = loadSnapshot(snapshot);
+    else
+      tree = new AVL();
+
+    //records from before a snapshot that didn't finish come first
+    Path oldWal = dir.resolve(OLD_WAL);
+    boolean interrupted = Files.exists(oldWal);
+    long[] ops = new long[1];
+    if(interrupted){
+      try(FileChannel old = FileChannel.open(oldWal, StandardOpenOption.READ)){
+        replay(old, tree, ops);
+      }
+    }
+
+    FileChannel wal = FileChannel.open(dir.resolve(WAL), StandardOpenOption.CREATE,
+      StandardOpenOption.READ, StandardOpenOption.WRITE);
+    long valid;
+    try{
+      valid = replay(wal, tree, ops);
+
+      //Folds both WALs into a new snapshot, since the next snapshot moves
+      //the WAL to OLD_WAL and must not replace records only it holds. A
+      //crash part way replays records the new snapshot has, harmlessly
+      if(interrupted){
+        int[] keys = new int[tree.getSize()];
+        tree.inorderIter(keys);
+        writeSnapshot(dir, keys);
+        Files.delete(oldWal);
+        valid = 0;
+        ops[0] = 0;
+      }
+      wal.truncate(valid);
+      wal.position(valid);
+      wal.force(true);
+    }
+    catch(IOException e){
+      wal.close();
+      throw e;
+    }
+    return new DurableAVL(dir, wal, tree, ops[0]);
+  }
+
+  //Loads the snapshot into a new AVL. A snapshot whose keys aren't sorted
+  //is as corrupt as one with a bad header, so both fail with IOException.
+  //The keys are read into the heap rather than mapped, since snapshot()
+  //later renames a new snapshot over this file and some platforms refuse
+  //to replace a file that is still mapped
+  private static AVL loadSnapshot(Path snapshot) throws IOException{
+    try{
+      return AVL.fromSorted(MappedIntSet.readKeys(snapshot));
+    }
+    catch(IllegalArgumentException e){
+      throw new IOException(snapshot + " is corrupt: " + e.getMessage(), e);
+    }
+  }
+
+  //Applies every complete batch in wal to tree, counting records in ops[0].
+  //Returns the number of bytes holding complete batches. Batches are read
+  //into a heap buffer rather than mapped, since open() truncates the WAL
+  //right after and a mapping still reachable past a truncate faults on
+  //some platforms when touched
+  private static long replay(FileChannel wal, AVL tree, long[] ops) throws IOException{
+    long bytes = wal.size();
+    ByteBuffer buf = ByteBuffer.allocate(BATCH_HEADER_BYTES + BATCH_OPS * RECORD_BYTES);
+    buf.order(ByteOrder.LITTLE_ENDIAN);
+
+    CRC32 crc = new CRC32();
+    long pos = 0;
+    int count;
+    int end;
+    int i;
+    while(pos + BATCH_HEADER_BYTES <= bytes){
+      //stops at a batch that is cut short or corrupted
+      buf.clear().limit(BATCH_HEADER_BYTES);
+      readFully(wal, buf, pos);
+      count = buf.getInt(0);
+      if(count <= 0 || count > BATCH_OPS)
+        break;
+      end = BATCH_HEADER_BYTES + count * RECORD_BYTES;
+      if(pos + end > bytes)
+        break;
+      buf.limit(end);
+      readFully(wal, buf, pos + BATCH_HEADER_BYTES);
+      crc.reset();
+      crc.update(buf.duplicate().position(BATCH_HEADER_BYTES).limit(end));
+      if((int) crc.getValue() != buf.getInt(4))
+        break;
+
+      //replays the records in order, inserts and deletes of the same key
+      //end the same way however many times they are applied
+      for(i = BATCH_HEADER_BYTES; i < end; i += RECORD_BYTES){
+        if(buf.get(i) == INSERT)
+          tree.insertIter(buf.getInt(i + 1));
+        else
+          tree.deleteIter(buf.getInt(i + 1));
+      }
+      ops[0] += count;
+      pos += end;
+    }
+    return pos;
+  }
+
+  //fills buf from its position to its limit with the bytes of channel
+  //starting at pos, looping since a read may return fewer bytes
+  private static void readFully(FileChannel channel, ByteBuffer buf, long pos) throws IOException{
+    int read;
+    while(buf.hasRemaining()){
+      read = channel.read(buf, pos);
+      if(read < 0)
+        throw new IOException("WAL ended early at byte " + pos);
+      pos += read;
+    }
+  }
+
+  /*
+  ----------------------------------------------------
+  WRITE METHODS
+  ----------------------------------------------------
+  */
+
+  //inserts val, returning once the change is on disk
+  void insertIter(int val) throws IOException{
+    append(INSERT, val);
+  }
+
+  //deletes val, returning once the change is on disk
+  void deleteIter(int val) throws IOException{
+    append(DELETE, val);
+  }
+
+  //applies op to the tree and adds it to the pending batch, then waits for
+  //a flush to put it on disk
+  private void append(byte op, int val) throws IOException{
+    long ops;
+    while(true){
+      checkFailure();
+      synchronized(this){
+        //Changes that do nothing aren't logged, but still wait for the
+        //records before them, one of which may be why they do nothing
+        if(tree.contains(val) == (op == INSERT)){
+          ops = appendedOps;
+          break;
+        }
+        if(pendingOps < BATCH_OPS){
+          if(op == INSERT)
+            tree.insertIter(val);
+          else
+            tree.deleteIter(val);
+          pending.put(op);
+          pending.putInt(val);
+          pendingOps++;
+          appendedOps++;
+          ops = appendedOps;
+          break;
+        }
+      }
+
+      //case: batch is full, flushes it to make room
+      flush();
+    }
+    awaitDurable(ops);
+  }
+
+  //returns once every change made before the call is on disk
+  void sync() throws IOException{
+    long ops;
+    synchronized(this){
+      ops = appendedOps;
+    }
+    awaitDurable(ops);
+  }
+
+  //Returns once the first ops records are on disk. The first thread to get
+  //flushLock writes every pending record, so the threads waiting behind it
+  //usually find theirs already written and return without touching the disk
+  private void awaitDurable(long ops) throws IOException{
+    if(durableOps >= ops)
+      return;
+    synchronized(flushLock){
+      if(durableOps < ops)
+        flush();
+      if(snapshotter == null && !closed && walOps > SNAPSHOT_MIN_OPS && walOps > getSize()){
+        snapshotter = new Thread(this::backgroundSnapshot, "DurableAVL snapshot");
+        snapshotter.setDaemon(true);
+        snapshotter.start();
+      }
+    }
+  }
+
+  //takes the snapshot asked for by awaitDurable(). A failure that leaves
+  //the WAL unsafe is kept in failure by snapshot() and reported to the next
+  //change, otherwise the next writer past the threshold tries again
+  private void backgroundSnapshot(){
+    try{
+      snapshot();
+    }
+    catch(IOException e){
+      //reported through failure, or retried
+    }
+    finally{
+      synchronized(flushLock){
+        snapshotter = null;
+      }
+    }
+  }
+
+  //throws if an earlier write to the WAL failed
+  private void checkFailure() throws IOException{
+    if(failure != null)
+      throw new IOException("an earlier WAL write failed, changes are no longer logged", failure);
+  }
+
+  //writes the pending batch to the WAL and forces it to disk
+  private void flush() throws IOException{
+    synchronized(flushLock){
+      checkFailure();
+      ByteBuffer batch;
+      int ops;
+      long upTo;
+      synchronized(this){
+        if(pendingOps == 0)
+          return;
+        batch = pending;
+        ops = pendingOps;
+        upTo = appendedOps;
+        pending = spare;
+        spare = batch;
+        pending.clear();
+        pending.position(BATCH_HEADER_BYTES);
+        pendingOps = 0;
+      }
+      writeBatch(batch, ops);
+      durableOps = upTo;
+    }
+  }
+
+  //fills in the header of a batch of ops records, appends it to the WAL and
+  //forces it to disk. Must hold flushLock. The batch is already in the tree,
+  //so a failure here marks the whole DurableAVL failed
+  private void writeBatch(ByteBuffer batch, int ops) throws IOException{
+    CRC32 crc = new CRC32();
+    batch.flip();
+    crc.update(batch.duplicate().position(BATCH_HEADER_BYTES));
+    batch.putInt(0, ops);
+    batch.putInt(4, (int) crc.getValue());
+    try{
+      while(batch.hasRemaining())
+        wal.write(batch);
+      wal.force(false);
+    }
+    catch(IOException e){
+      failure = e;
+      throw e;
+    }
+    walOps += ops;
+  }
+
+  //Writes the tree to a new snapshot and drops the WAL records it holds.
+  //Holding the locks, the keys are copied and the WAL is moved to OLD_WAL
+  //with a new one started, so writers only wait for the copy and keep
+  //appending while the snapshot is written. The snapshot is written beside
+  //the old one and renamed over it, then OLD_WAL is deleted, so a crash
+  //leaves either the old snapshot and both WALs or the new snapshot
+  void snapshot() throws IOException{
+    synchronized(snapshotLock){
+      int[] keys;
+      synchronized(flushLock){
+        checkFailure();
+        if(closed)
+          throw new IOException("DurableAVL is closed");
+        synchronized(this){
+          flushPendingLocked();
+          keys = new int[tree.getSize()];
+          tree.inorderIter(keys);
+        }
+        rotateWal();
+      }
+
+      //OLD_WAL now holds records no other file has until the snapshot is in
+      //place, and the next rotation would replace it, so a failure here
+      //stops changes until open() folds it in
+      try{
+        writeSnapshot(dir, keys);
+        Files.delete(dir.resolve(OLD_WAL));
+      }
+      catch(IOException e){
+        failure = e;
+        throw e;
+      }
+    }
+  }
+
+  //moves the WAL, which only holds records already copied for a snapshot,
+  //to OLD_WAL and starts an empty one. Must hold flushLock. A WAL that
+  //can't be replaced can't be appended to safely either
+  private void rotateWal() throws IOException{
+    try{
+      wal.close();
+      Files.move(dir.resolve(WAL), dir.resolve(OLD_WAL), StandardCopyOption.ATOMIC_MOVE);
+      wal = FileChannel.open(dir.resolve(WAL), StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+      syncDirectory(dir);
+    }
+    catch(IOException e){
+      failure = e;
+      throw e;
+    }
+    walOps = 0;
+  }
+
+  //writes keys to a snapshot file beside the current one and renames it into
+  //place, so a crash leaves one or the other
+  private static void writeSnapshot(Path dir, int[] keys) throws IOException{
+    Path tmp = dir.resolve(SNAPSHOT + ".tmp");
+    MappedIntSet.write(Arrays.stream(keys).iterator(), keys.length, tmp);
+    Files.move(tmp, dir.resolve(SNAPSHOT), StandardCopyOption.REPLACE_EXISTING,
+      StandardCopyOption.ATOMIC_MOVE);
+    syncDirectory(dir);
+  }
+
+  //flushes the pending batch while already holding this and flushLock, so
+  //the snapshot sees exactly the changes that are written
+  private void flushPendingLocked() throws IOException{
+    if(pendingOps == 0)
+      return;
+    writeBatch(pending, pendingOps);
+    durableOps = appendedOps;
+    pending.clear();
+    pending.position(BATCH_HEADER_BYTES);
+    pendingOps = 0;
+  }
+
+  //forces renames in dir to disk. Not every platform can open a directory,
+  //those make renames durable on their own
+  private static void syncDirectory(Path dir){
+    try(FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)){
+      channel.force(true);
+    }
+    catch(IOException e){
+      //directory can't be synced here, the rename is left to the OS
+    }
+  }
+
+  //syncs the pending changes, waits for a snapshot being taken and closes
+  //the WAL, even if the sync fails
+  @Override
+  public void close() throws IOException{
+    try{
+      sync();
+    }
+    finally{
+      Thread running;
+      synchronized(flushLock){
+        running = snapshotter;
+      }
+      if(running != null){
+        try{
+          running.join();
+        }
+        catch(InterruptedException e){
+          //closes anyway, the snapshot sees closed or finishes on its own
+          Thread.currentThread().interrupt();
+        }
+      }
+      synchronized(flushLock){
+        closed = true;
+        wal.close();
+      }
+    }
+  }
+
+  /*
+  ----------------------------------------------------
+  READ METHODS
+  ----------------------------------------------------
+  */
+
+  //Reads are not durable reads. They see every change applied to the tree,
+  //including ones still waiting for their flush that a crash would lose,
+  //and after a failure ones that never made it to the WAL. Call sync()
+  //after a read to be sure that what it saw is on disk
+
+  //returns whether val is in the tree
+  synchronized boolean contains(int val){
+    return tree.contains(val);
+  }
+
+  //finds the biggest key that is smaller than or equal to val, null if none
+  synchronized Integer floor(int val){
+    AVL.Node node = tree.floor(val);
+    return (node == null ? null : node.data);
+  }
+
+  //finds the smallest key that is bigger than or equal to val, null if none
+  synchronized Integer ceiling(int val){
+    AVL.Node node = tree.ceiling(val);
+    return (node == null ? null : node.data);
+  }
+
+  //number of keys in the tree
+  synchronized int getSize(){
+    return tree.getSize();
+  }
+
+  //writes the tree into arr in order, returns the number written
+  synchronized int inorderIter(int[] arr){
+    return tree.inorderIter(arr);
+  }
+}
+
+//end of file
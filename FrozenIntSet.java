@@ -0,0 +1,273 @@
+/*
+Frozen Int Set Class
+Written by Giancarlo Calle
+*/
+import java.util.NoSuchElementException;
+
+//A read only set of ints kept in one array in Eytzinger order: the keys of a
+//complete binary search tree laid out level by level like a heap, so the
+//children of index k are 2k and 2k + 1. A search reads index 1, then 2 or 3,
+//then 4 to 7, so the first levels of every search share a few hot cache
+//lines, and the 16 possible nodes four levels below k are next to each other
+//at 16k to 16k + 15, one or two cache lines a search can start reading
+//before it gets there. There are no pointers to chase and no branch to
+//mispredict: each step only turns the comparison into the next index. Built
+//with AVL.freeze(), and never changed after, so any number of threads can
+//read it
+public final class FrozenIntSet{
+  //keys in Eytzinger order from index 1, index 0 is unused
+  private final int[] tree;
+  private final int size;
+
+  //FrozenIntSet constructor, use fromSorted() or AVL.freeze()
+  private FrozenIntSet(int[] tree, int size){
+    this.tree = tree;
+    this.size = size;
+  }
+
+  //number of keys in the set
+  public int getSize(){
+    return size;
+  }
+
+  //builds a set from strictly ascending keys
+  static FrozenIntSet fromSorted(int[] keys){
+    //keeps 2k + 1 from overflowing for every index k
+    if(keys.length >= 1 << 30)
+      throw new IllegalArgumentException("too many keys to freeze: " + keys.length);
+    int i;
+    for(i = 1; i < keys.length; i++){
+      if(keys[i] <= keys[i - 1])
+        throw new IllegalArgumentException("keys are not strictly ascending at index " + i);
+    }
+    int[] tree = new int[keys.length + 1];
+    fill(keys, tree, 0, 1);
+    return new FrozenIntSet(tree, keys.length);
+  }
+
+  //Writes keys from index i on into the subtree at k in order, returns the
+  //index of the next key to write. Recursion is bounded by log2(n)
+  private static int fill(int[] keys, int[] tree, int i, int k){
+    if(k < tree.length){
+      i = fill(keys, tree, i, 2 * k);
+      tree[k] = keys[i];
+      i++;
+      i = fill(keys, tree, i, 2 * k + 1);
+    }
+    return i;
+  }
+
+  /*
+  ----------------------------------------------------
+  SEARCHES
+  ----------------------------------------------------
+  */
+
+  //Walks from the root to past a leaf, going right past keys smaller than
+  //val. The bits of the index spell the turns taken, and the last left turn
+  //was at the first key bigger than or equal to val, so dropping the
+  //trailing right turns and that left turn gives its index, 0 if none
+  private int ceilingIndex(int val){
+    int[] tree = this.tree;
+    int n = size;
+    int k = 1;
+    int prefetch = 0;
+    while(k <= n){
+      //Java has no prefetch instruction, so reads the block of nodes four
+      //levels down instead. Nothing waits on the read, so the CPU starts it
+      //early and has the line by the time the search gets there. 16k is
+      //computed in a long since it passes 2^31 on sets of 2^27 keys or more
+      prefetch |= tree[(int) Math.min(16L * k, n)];
+
+      //1 when tree[k] < val, without a branch. The difference of two ints
+      //always fits in a long, so its sign bit is the comparison
+      k = 2 * k + (int) (((long) tree[k] - val) >>> 63);
+    }
+    k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+    return keep(k, prefetch, val);
+  }
+
+  //Returns k whatever prefetch is. The JIT drops reads whose values are
+  //never used, and can't tell this always returns k, so the prefetches stay
+  private static int keep(int k, int prefetch, int val){
+    return (k == 0 && prefetch == val ? 0 : k);
+  }
+
+  //Like ceilingIndex() but going right past keys smaller than or equal to
+  //val. The last right turn was at the biggest key smaller than or equal to
+  //val, so dropping the trailing left turns and that right turn gives its
+  //index, 0 if none
+  private int floorIndex(int val){
+    int[] tree = this.tree;
+    int n = size;
+    int k = 1;
+    int prefetch = 0;
+    while(k <= n){
+      prefetch |= tree[(int) Math.min(16L * k, n)];
+
+      //1 when tree[k] <= val, without a branch
+      k = 2 * k + (int) (((long) val - tree[k]) >>> 63 ^ 1);
+    }
+    k >>>= Integer.numberOfTrailingZeros(k) + 1;
+    return keep(k, prefetch, val);
+  }
+
+  //Returns the position of index k in key order. Index k at depth d is
+  //where it would be in a perfect tree as tall as this one, less the missing
+  //leaves before it, since only the last level can be incomplete
+  private int rankOf(int k){
+    int height = 31 - Integer.numberOfLeadingZeros(size);
+    int depth = 31 - Integer.numberOfLeadingZeros(k);
+    int pos = ((2 * (k - (1 << depth)) + 1) << (height - depth)) - 1;
+    int leaves = size - (1 << height) + 1;
+    return pos - Math.max(0, (pos + 1) / 2 - leaves);
+  }
+
+  //returns whether val is in the set
+  boolean contains(int val){
+    int k = ceilingIndex(val);
+    return k != 0 && tree[k] == val;
+  }
+
+  //finds the biggest key that is smaller than or equal to val, null if none
+  Integer floor(int val){
+    int k = floorIndex(val);
+    return (k == 0 ? null : tree[k]);
+  }
+
+  //finds the smallest key that is bigger than or equal to val, null if none
+  Integer ceiling(int val){
+    int k = ceilingIndex(val);
+    return (k == 0 ? null : tree[k]);
+  }
+
+  //returns the number of keys smaller than val
+  int rank(int val){
+    int k = ceilingIndex(val);
+    return (k == 0 ? size : rankOf(k));
+  }
+
+  //finds the biggest key that is strictly smaller than val, null if none
+  Integer lower(int val){
+    if(val == Integer.MIN_VALUE)
+      return null;
+    return floor(val - 1);
+  }
+
+  //finds the smallest key that is strictly bigger than val, null if none
+  Integer higher(int val){
+    if(val == Integer.MAX_VALUE)
+      return null;
+    return ceiling(val + 1);
+  }
+
+  /*
+  ----------------------------------------------------
+  BATCH SEARCHES
+  ----------------------------------------------------
+  */
+
+  //keys searched together by the batch methods
+  static final int BATCH_LANES = 16;
+
+  //Finds ceilingIndex() of keys[from] to keys[end - 1] into lanes. Walks the
+  //keys down a level at a time together instead of one key to the bottom
+  //after another, so the reads of different keys don't wait on each other
+  //and the CPU keeps up to BATCH_LANES cache misses going at once
+  private void ceilingIndexes(int[] keys, int from, int end, int[] lanes){
+    int[] tree = this.tree;
+    int n = size;
+    int count = end - from;
+    int lane;
+    int level;
+    int k;
+    for(lane = 0; lane < count; lane++)
+      lanes[lane] = 1;
+
+    //every level above the last is full, so no walk ends before it and the
+    //lanes step without checking
+    int full = (n == 0 ? 0 : 31 - Integer.numberOfLeadingZeros(n));
+    for(level = 0; level < full; level++){
+      for(lane = 0; lane < count; lane++){
+        k = lanes[lane];
+        lanes[lane] = 2 * k + (int) (((long) tree[k] - keys[from + lane]) >>> 63);
+      }
+    }
+
+    //steps the lanes that still have a node on the last level
+    for(lane = 0; lane < count; lane++){
+      k = lanes[lane];
+      if(k <= n)
+        k = 2 * k + (int) (((long) tree[k] - keys[from + lane]) >>> 63);
+      lanes[lane] = k >>> (Integer.numberOfTrailingZeros(~k) + 1);
+    }
+  }
+
+  //sets out[i] to whether keys[i] is in the set, for every key
+  void containsAll(int[] keys, boolean[] out){
+    if(out.length < keys.length)
+      throw new IllegalArgumentException("out holds " + out.length + " results, "
+        + keys.length + " keys given");
+    int[] lanes = new int[BATCH_LANES];
+    int from;
+    int end;
+    int i;
+    int k;
+    for(from = 0; from < keys.length; from += BATCH_LANES){
+      end = Math.min(from + BATCH_LANES, keys.length);
+      ceilingIndexes(keys, from, end, lanes);
+      for(i = from; i < end; i++){
+        k = lanes[i - from];
+        out[i] = (k != 0 && tree[k] == keys[i]);
+      }
+    }
+  }
+
+  //sets out[i] to the number of keys smaller than keys[i], for every key
+  void rankAll(int[] keys, int[] out){
+    if(out.length < keys.length)
+      throw new IllegalArgumentException("out holds " + out.length + " results, "
+        + keys.length + " keys given");
+    int[] lanes = new int[BATCH_LANES];
+    int from;
+    int end;
+    int i;
+    int k;
+    for(from = 0; from < keys.length; from += BATCH_LANES){
+      end = Math.min(from + BATCH_LANES, keys.length);
+      ceilingIndexes(keys, from, end, lanes);
+      for(i = from; i < end; i++){
+        k = lanes[i - from];
+        out[i] = (k == 0 ? size : rankOf(k));
+      }
+    }
+  }
+
+  /*
+  ----------------------------------------------------
+  MIN AND MAX
+  ----------------------------------------------------
+  */
+
+  //finds the minimum number in the set, the leftmost node
+  int findMinIter(){
+    if(size == 0)
+      throw new NoSuchElementException();
+    int k = 1;
+    while(2 * k <= size)
+      k = 2 * k;
+    return tree[k];
+  }
+
+  //finds the maximum number in the set, the rightmost node
+  int findMaxIter(){
+    if(size == 0)
+      throw new NoSuchElementException();
+    int k = 1;
+    while(2 * k + 1 <= size)
+      k = 2 * k + 1;
+    return tree[k];
+  }
+}
+
+//end of file
@@ -0,0 +1,19 @@
+/*
+int to int Binary Search Tree Map Class
+Written by Giancarlo Calle
+*/
+
+//An IntIntAVL that never rebalances, so it keeps the shape of its insert order
+public class IntIntBST extends IntIntAVL{
+  //IntIntBST constructor
+  public IntIntBST(){
+    this(16);
+  }
+
+  //IntIntBST constructor with room for capacity keys before growing
+  public IntIntBST(int capacity){
+    super(capacity, false);
+  }
+}
+
+//end of file
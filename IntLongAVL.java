@@ -0,0 +1,64 @@
+/*
+int to long AVL Tree Map Class
+Written by Giancarlo Calle
+*/
+import java.util.Arrays;
+
+public class IntLongAVL extends ArrayAVL{
+  //value of every node, indexed like the keys so nothing is boxed
+  private long[] values;
+
+  //IntLongAVL constructor
+  public IntLongAVL(){
+    this(16);
+  }
+
+  //IntLongAVL constructor with room for capacity keys before growing
+  public IntLongAVL(int capacity){
+    this(capacity, true);
+  }
+
+  //IntLongAVL constructor, an unbalanced BST if balanced is false
+  IntLongAVL(int capacity, boolean balanced){
+    super(capacity, balanced);
+    values = new long[capacity()];
+  }
+
+  @Override
+  void resize(int size){
+    super.resize(size);
+    values = Arrays.copyOf(values, size);
+  }
+
+  @Override
+  void moveNode(int from, int to){
+    values[index(to)] = values[index(from)];
+  }
+
+  //keys inserted with insertIter(int) map to 0
+  @Override
+  void clearNode(int node){
+    values[index(node)] = 0;
+  }
+
+  //maps key to value, replacing the old value if key is already in the tree
+  void insertIter(int key, long value){
+    int node = insertNode(key);
+    values[index(node)] = value;
+  }
+
+  //returns the value mapped to key, or missing if key is not in the tree
+  long get(int key, long missing){
+    int node = find(key);
+    if(node == NIL)
+      return missing;
+    return values[index(node)];
+  }
+
+  //returns the value stored in node
+  long value(int node){
+    return values[index(node)];
+  }
+}
+
+//end of file
@@ -0,0 +1,19 @@
+/*
+int to long Binary Search Tree Map Class
+Written by Giancarlo Calle
+*/
+
+//An IntLongAVL that never rebalances, so it keeps the shape of its insert order
+public class IntLongBST extends IntLongAVL{
+  //IntLongBST constructor
+  public IntLongBST(){
+    this(16);
+  }
+
+  //IntLongBST constructor with room for capacity keys before growing
+  public IntLongBST(int capacity){
+    super(capacity, false);
+  }
+}
+
+//end of file
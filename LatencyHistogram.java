@@ -0,0 +1,102 @@
+/*
+Latency Histogram Class
+Written by Giancarlo Calle
+*/
+import java.util.concurrent.atomic.LongAdder;
+
+//Counts nanosecond latencies in log linear buckets like HdrHistogram: every
+//power of two range is split into SUB_BUCKETS equal buckets, so a recorded
+//value is off by at most 1/SUB_BUCKETS (about 6%) whatever its size, and the
+//whole long range fits in under a thousand buckets. Each bucket is a
+//LongAdder so threads recording at once don't contend on one counter
+public class LatencyHistogram{
+  static final int SUB_BITS = 4;
+  static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+  //values below SUB_BUCKETS get a bucket each, then SUB_BUCKETS buckets for
+  //every power of two from SUB_BUCKETS up to 2^63
+  private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+  private final LongAdder[] counts = new LongAdder[BUCKETS];
+
+  //LatencyHistogram constructor
+  public LatencyHistogram(){
+    int i;
+    for(i = 0; i < BUCKETS; i++)
+      counts[i] = new LongAdder();
+  }
+
+  //returns the bucket holding value, negative values count as 0
+  static int bucket(long value){
+    if(value < SUB_BUCKETS)
+      return (value < 0 ? 0 : (int) value);
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+  }
+
+  //returns the biggest value that falls in bucket
+  static long bucketMax(int bucket){
+    if(bucket < SUB_BUCKETS)
+      return bucket;
+    int shift = bucket / SUB_BUCKETS - 1;
+    long low = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    return low + (1L << shift) - 1;
+  }
+
+  //records one latency in nanoseconds
+  void record(long nanos){
+    counts[bucket(nanos)].increment();
+  }
+
+  //records count latencies of nanos each
+  void record(long nanos, long count){
+    counts[bucket(nanos)].add(count);
+  }
+
+  //number of latencies recorded
+  long getCount(){
+    long total = 0;
+    int i;
+    for(i = 0; i < BUCKETS; i++)
+      total += counts[i].sum();
+    return total;
+  }
+
+  //returns the p-th percentile (0 to 100) in nanoseconds, rounded up to the
+  //end of its bucket. Returns 0 if nothing was recorded
+  long percentile(double p){
+    if(p < 0 || p > 100)
+      throw new IllegalArgumentException("percentile must be between 0 and 100: " + p);
+
+    //sums the buckets once so records made meanwhile can't push the target
+    //past the end
+    long[] snapshot = new long[BUCKETS];
+    long total = 0;
+    int i;
+    for(i = 0; i < BUCKETS; i++){
+      snapshot[i] = counts[i].sum();
+      total += snapshot[i];
+    }
+    if(total == 0)
+      return 0;
+
+    //multiplies first like AVL.percentile so whole percentiles are exact
+    long target = Math.max(1, (long) Math.ceil(p * total / 100));
+    long seen = 0;
+    for(i = 0; i < BUCKETS; i++){
+      seen += snapshot[i];
+      if(seen >= target)
+        return bucketMax(i);
+    }
+    return bucketMax(BUCKETS - 1);
+  }
+
+  //forgets every latency recorded. Records made meanwhile may be kept or not
+  void reset(){
+    int i;
+    for(i = 0; i < BUCKETS; i++)
+      counts[i].reset();
+  }
+}
+
+//end of file
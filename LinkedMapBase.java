@@ -0,0 +1,276 @@
+/*
+Linked Tree Map Base Class
+Written by Giancarlo Calle
+*/
+import java.util.Arrays;
+
+//The part of the node based maps that doesn't depend on the key type: the
+//parent stack, rotations, rebalancing and unlinking a node. Subclasses keep
+//their own descent loops, comparing keys of their own type without boxing,
+//push the nodes they pass and hand the result to insertBelow() or
+//removeFound(). With balancing off the same code is a plain BST
+abstract class LinkedMapBase<N extends LinkedMapBase.Node<N>>{
+  //links of a node in the tree, subclasses add the key and value
+  static class Node<N>{
+    N right;
+    N left;
+
+    //height of the subtree rooted at this node, leaves are 0. Only kept up
+    //to date when the tree is balanced
+    int height;
+  }
+
+  //whether the tree is kept balanced as an AVL, or left as a plain BST
+  private final boolean balanced;
+
+  //LinkedMapBase constructor
+  LinkedMapBase(boolean balanced){
+    this.balanced = balanced;
+    this.root = null;
+    this.size = 0;
+    this.levels = 0;
+  }
+
+  //will be root of the tree
+  N root;
+
+  //number of keys in the tree
+  int size;
+  public int getSize(){
+    return size;
+  }
+
+  //records the amount of levels of the tree traversed w/ methods
+  long levels;
+  public long getLevels(){
+    return levels;
+  }
+
+  //stack used to store parents for methods. Grows when a BST gets taller
+  //than it, AVLs never do. Kept as Object[] since arrays of N can't be made
+  private Object[] stack = new Object[48];
+  private int stackSize;
+
+  //adds node to the top of the stack
+  final void push(N node){
+    if(stackSize == stack.length)
+      stack = Arrays.copyOf(stack, stackSize * 2);
+    stack[stackSize] = node;
+    stackSize++;
+  }
+
+  //removes and returns the top of the stack, clearing its slot so removed
+  //nodes and their values aren't kept reachable
+  @SuppressWarnings("unchecked")
+  private N pop(){
+    stackSize--;
+    N node = (N) stack[stackSize];
+    stack[stackSize] = null;
+    return node;
+  }
+
+  //returns the top of the stack
+  @SuppressWarnings("unchecked")
+  private N peek(){
+    return (N) stack[stackSize - 1];
+  }
+
+  //empties the stack, clearing every slot that was used
+  final void clearStack(){
+    while(stackSize > 0){
+      stackSize--;
+      stack[stackSize] = null;
+    }
+  }
+
+  //called when removeFound() moves the successor's key and value from node
+  //"from" into node "to"
+  abstract void moveEntry(N from, N to);
+
+  /*
+  ----------------------------------------------------
+  BALANCING
+  ----------------------------------------------------
+  */
+
+  //returns the cached height of a node, null nodes are -1
+  private int height(N node){
+    return (node == null ? -1 : node.height);
+  }
+
+  //recomputes the height of a node from its children's cached heights
+  private void updateHeight(N node){
+    int left = height(node.left);
+    int right = height(node.right);
+    node.height = (left > right ? left : right) + 1;
+  }
+
+  //returns the balance factor (bf) of a node
+  private int bf(N node){
+    return height(node.left) - height(node.right);
+  }
+
+  //method for right rotation using grand parent node
+  private N rotationR(N p){
+    N c = p.left;
+    p.left = c.right;
+    c.right = p;
+    updateHeight(p);
+    updateHeight(c);
+    if(root == p)
+      root = c;
+    return c;
+  }
+
+  //method for left rotation using parent node
+  private N rotationL(N p){
+    N c = p.right;
+    p.right = c.left;
+    c.left = p;
+    updateHeight(p);
+    updateHeight(c);
+    if(root == p)
+      root = c;
+    return c;
+  }
+
+  //balances tree based on root (node), children must already be up to date
+  private N balance(N node){
+    updateHeight(node);
+    int bf = bf(node);
+
+    //do nothing if balance factor is fine
+    if(bf <= 1 && bf >= -1)
+      return node;
+
+    if(bf > 1){ //node is left heavy
+      if(bf(node.left) <= -1) //left node is right heavy
+        node.left = rotationL(node.left);
+      return rotationR(node);
+    }
+
+    //node is right heavy
+    if(bf(node.right) >= 1) //right node is left heavy
+      node.right = rotationR(node.right);
+    return rotationL(node);
+  }
+
+  //rebalances the nodes on the stack from the bottom up, then empties it.
+  //Stops early once a subtree keeps its old height since none of its
+  //parents can have changed
+  private void rebalanceStack(){
+    if(!balanced){
+      clearStack();
+      return;
+    }
+
+    N curr;
+    N replace;
+    N parent;
+    int oldHeight;
+    while(stackSize > 0){
+      curr = pop();
+      oldHeight = curr.height;
+      replace = balance(curr);
+
+      //reattaches the rotated subtree to its parent
+      if(replace != curr && stackSize > 0){
+        parent = peek();
+        if(parent.left == curr)
+          parent.left = replace;
+        else
+          parent.right = replace;
+      }
+
+      if(replace.height == oldHeight)
+        break;
+    }
+    clearStack();
+  }
+
+  /*
+  ----------------------------------------------------
+  UPDATES
+  ----------------------------------------------------
+  */
+
+  //makes node the root of an empty tree
+  final void insertRoot(N node){
+    root = node;
+    size++;
+  }
+
+  //links a new leaf below the node on top of the stack, on its left if left
+  //is set, then rebalances the path the subclass pushed
+  final void insertBelow(N node, boolean left){
+    size++;
+    N parent = peek();
+    if(left)
+      parent.left = node;
+    else
+      parent.right = node;
+    rebalanceStack();
+  }
+
+  //Unlinks node, whose parents from the root down are on the stack, then
+  //rebalances. A node with two children takes its successor's key and value
+  //and the successor, which never has a left child, is unlinked instead
+  final void removeFound(N node){
+    if(node.left != null && node.right != null){
+      N replaced = node;
+      push(node);
+      node = node.right;
+      while(node.left != null){
+        push(node);
+        node = node.left;
+        levels++;
+      }
+      moveEntry(node, replaced);
+    }
+    size--;
+
+    //replaces node with its only child, or null if it has no children
+    N child;
+    if(node.left == null)
+      child = node.right;
+    else
+      child = node.left;
+
+    //case: deleting root
+    if(stackSize == 0){
+      root = child;
+      return;
+    }
+
+    N parent = peek();
+    if(parent.left == node)
+      parent.left = child;
+    else
+      parent.right = child;
+
+    //balances up nodes
+    rebalanceStack();
+  }
+
+  //returns the leftmost node, null if the tree is empty
+  final N minNode(){
+    N node = root;
+    if(node == null)
+      return null;
+    while(node.left != null)
+      node = node.left;
+    return node;
+  }
+
+  //returns the rightmost node, null if the tree is empty
+  final N maxNode(){
+    N node = root;
+    if(node == null)
+      return null;
+    while(node.right != null)
+      node = node.right;
+    return node;
+  }
+}
+
+//end of file
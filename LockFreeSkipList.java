@@ -0,0 +1,347 @@
+/*
+Lock Free Skip List Class
+Written by Giancarlo Calle
+*/
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicMarkableReference;
+import java.util.concurrent.atomic.LongAdder;
+
+//An ordered set any number of threads can change at once without locks.
+//Keys sit in sorted linked lists, one per level, each level skipping about
+//half the nodes of the one below. Nodes are linked in and out with CAS one
+//level at a time, so writers only contend when they change the same few
+//nodes, instead of all meeting at the top of a tree whose rotations move
+//its root. A node is deleted by marking its links first, which stops any
+//CAS from linking a node after it, then unlinking it, which any thread
+//walking past does. Lookups never write or retry
+public class LockFreeSkipList implements OrderedIntSet{
+  //levels above the bottom list. With half the nodes on each level, 2^24
+  //keys still reach the top few levels
+  static final int MAX_LEVEL = 24;
+
+  //Node struct used in the list. Keys are longs so head and tail can sort
+  //before and after every int
+  static final class Node{
+    final long key;
+
+    //next node on each level the node is on, marked once the node is deleted
+    final AtomicMarkableReference<Node>[] next;
+
+    //Node constructor, the node is on levels 0 to top. Arrays of a generic
+    //type can't be made, so a wildcard array is cast to it
+    @SuppressWarnings("unchecked")
+    Node(long key, int top){
+      this.key = key;
+      this.next = (AtomicMarkableReference<Node>[]) new AtomicMarkableReference<?>[top + 1];
+    }
+  }
+
+  //sentinels at both ends of every level
+  private final Node head = new Node(Long.MIN_VALUE, MAX_LEVEL);
+  private final Node tail = new Node(Long.MAX_VALUE, MAX_LEVEL);
+
+  //LockFreeSkipList constructor
+  public LockFreeSkipList(){
+    int level;
+    for(level = 0; level <= MAX_LEVEL; level++){
+      head.next[level] = new AtomicMarkableReference<>(tail, false);
+      tail.next[level] = new AtomicMarkableReference<>(null, false);
+    }
+  }
+
+  //number of keys in the list, exact whenever no writer is running
+  private final LongAdder size = new LongAdder();
+  @Override
+  public int getSize(){
+    return (int) size.sum();
+  }
+
+  //records the amount of nodes walked past w/ methods, added once per call
+  //so threads don't contend on it
+  private final LongAdder levels = new LongAdder();
+  @Override
+  public long getLevels(){
+    return levels.sum();
+  }
+
+  //returns the top level of a new node, level l with probability 1/2^(l+1)
+  private static int randomLevel(){
+    return Integer.numberOfTrailingZeros(ThreadLocalRandom.current().nextInt() | (1 << MAX_LEVEL));
+  }
+
+  /*
+  ----------------------------------------------------
+  ITERATIVE METHODS
+  ----------------------------------------------------
+  */
+
+  //Finds the last node before key, in preds, and the first node not before
+  //key, in succs, on every level. Unlinks the marked nodes it walks past,
+  //starting over if another thread changed a link first. Returns whether
+  //key is in the list
+  private boolean find(long key, Node[] preds, Node[] succs){
+    boolean[] marked = {false};
+    Node pred;
+    Node curr;
+    Node succ;
+    int level;
+    int steps;
+    retry:
+    while(true){
+      steps = 0;
+      pred = head;
+      for(level = MAX_LEVEL; level >= 0; level--){
+        curr = pred.next[level].getReference();
+        while(true){
+          succ = curr.next[level].get(marked);
+
+          //unlinks deleted nodes between pred and the next live node
+          while(marked[0]){
+            if(!pred.next[level].compareAndSet(curr, succ, false, false))
+              continue retry;
+            curr = succ;
+            succ = curr.next[level].get(marked);
+          }
+          if(curr.key >= key)
+            break;
+          pred = curr;
+          curr = succ;
+          steps++;
+        }
+        preds[level] = pred;
+        succs[level] = curr;
+      }
+      levels.add(steps);
+      return succs[0].key == key;
+    }
+  }
+
+  //Walks down to the first live node not before key on the bottom level
+  //without writing anything, stepping over deleted nodes. Stores the last
+  //node before it in pred[0]
+  private Node ceilingNode(long key, Node[] pred){
+    boolean[] marked = {false};
+    Node prev = head;
+    Node curr = null;
+    Node succ;
+    int level;
+    int steps = 0;
+    for(level = MAX_LEVEL; level >= 0; level--){
+      curr = prev.next[level].getReference();
+      while(true){
+        succ = curr.next[level].get(marked);
+        while(marked[0]){
+          curr = succ;
+          succ = curr.next[level].get(marked);
+        }
+        if(curr.key >= key)
+          break;
+        prev = curr;
+        curr = succ;
+        steps++;
+      }
+    }
+    levels.add(steps);
+    if(pred != null)
+      pred[0] = prev;
+    return curr;
+  }
+
+  //inserts val if it is not in the list yet
+  @Override
+  public void insertIter(int val){
+    int top = randomLevel();
+    Node[] preds = new Node[MAX_LEVEL + 1];
+    Node[] succs = new Node[MAX_LEVEL + 1];
+    Node node;
+    int level;
+    while(true){
+      //edge case if val already exists in list
+      if(find(val, preds, succs))
+        return;
+
+      node = new Node(val, top);
+      for(level = 0; level <= top; level++)
+        node.next[level] = new AtomicMarkableReference<>(succs[level], false);
+
+      //the node is in the set once it is linked on the bottom level
+      if(!preds[0].next[0].compareAndSet(succs[0], node, false, false))
+        continue;
+      size.increment();
+
+      //links the upper levels, finding them again if they changed
+      Node succ;
+      for(level = 1; level <= top; level++){
+        while(true){
+          //points the node at the current successor first. Stops if another
+          //thread already deleted the node and marked its link
+          succ = node.next[level].getReference();
+          if(succ != succs[level]
+              && !node.next[level].compareAndSet(succ, succs[level], false, false))
+            return;
+          if(preds[level].next[level].compareAndSet(succs[level], node, false, false))
+            break;
+
+          //stops if the node was deleted and unlinked meanwhile
+          find(val, preds, succs);
+          if(succs[0] != node)
+            return;
+        }
+      }
+      return;
+    }
+  }
+
+  //deletes val if it is in the list
+  @Override
+  public void deleteIter(int val){
+    Node[] preds = new Node[MAX_LEVEL + 1];
+    Node[] succs = new Node[MAX_LEVEL + 1];
+
+    //returns if node to delete does not exist
+    if(!find(val, preds, succs))
+      return;
+    Node node = succs[0];
+
+    //marks the upper levels so nothing gets linked after the node there
+    boolean[] marked = {false};
+    Node succ;
+    int level;
+    for(level = node.next.length - 1; level >= 1; level--){
+      succ = node.next[level].get(marked);
+      while(!marked[0]){
+        node.next[level].compareAndSet(succ, succ, false, true);
+        succ = node.next[level].get(marked);
+      }
+    }
+
+    //whichever thread marks the bottom level deleted the key
+    succ = node.next[0].get(marked);
+    while(!marked[0]){
+      if(node.next[0].compareAndSet(succ, succ, false, true)){
+        size.decrement();
+
+        //unlinks the node on every level
+        find(val, preds, succs);
+        return;
+      }
+      succ = node.next[0].get(marked);
+    }
+  }
+
+  //returns whether val is in the list
+  @Override
+  public boolean contains(int val){
+    return ceilingNode(val, null).key == val;
+  }
+
+  //finds the smallest key that is bigger than or equal to val, null if none
+  Integer ceiling(int val){
+    Node node = ceilingNode(val, null);
+    return (node == tail ? null : (int) node.key);
+  }
+
+  //finds the biggest key that is smaller than or equal to val, null if none
+  Integer floor(int val){
+    Node[] pred = new Node[1];
+    Node node = ceilingNode(val, pred);
+    if(node.key == val)
+      return val;
+    return (pred[0] == head ? null : (int) pred[0].key);
+  }
+
+  //finds the smallest key that is bigger than val, null if none
+  @Override
+  public Integer findNextIter(int val){
+    Node node = ceilingNode(val + 1L, null);
+    return (node == tail ? null : (int) node.key);
+  }
+
+  //finds the biggest key that is smaller than val, null if none
+  @Override
+  public Integer findPrevIter(int val){
+    Node[] pred = new Node[1];
+    ceilingNode(val, pred);
+    return (pred[0] == head ? null : (int) pred[0].key);
+  }
+
+  //finds the minimum number in the list
+  @Override
+  public int findMinIter(){
+    Node node = ceilingNode(Long.MIN_VALUE + 1, null);
+    if(node == tail)
+      throw new NoSuchElementException();
+    return (int) node.key;
+  }
+
+  //finds the maximum number in the list
+  @Override
+  public int findMaxIter(){
+    Node[] pred = new Node[1];
+    ceilingNode(Long.MAX_VALUE, pred);
+    if(pred[0] == head)
+      throw new NoSuchElementException();
+    return (int) pred[0].key;
+  }
+
+  //writes the list into arr in order starting at index from, returns the
+  //number written. Writers running at the same time may or may not be seen
+  @Override
+  public int inorderIter(int[] arr, int from){
+    int i = from;
+    PrimitiveIterator.OfInt it = iterator();
+    while(it.hasNext()){
+      arr[i] = it.nextInt();
+      i++;
+    }
+    return i - from;
+  }
+
+  /*
+  ----------------------------------------------------
+  ITERATORS
+  ----------------------------------------------------
+  */
+
+  //iterator over the keys in order along the bottom level, skipping deleted
+  //nodes. Writers can keep running, keys they add or delete meanwhile may or
+  //may not be seen
+  private class Cursor implements PrimitiveIterator.OfInt{
+    private Node next;
+
+    Cursor(){
+      next = live(head.next[0].getReference());
+    }
+
+    //returns node or the first node after it that isn't deleted
+    private Node live(Node node){
+      while(node != tail && node.next[0].isMarked())
+        node = node.next[0].getReference();
+      return node;
+    }
+
+    @Override
+    public boolean hasNext(){
+      return next != tail;
+    }
+
+    @Override
+    public int nextInt(){
+      if(next == tail)
+        throw new NoSuchElementException();
+      Node node = next;
+      next = live(node.next[0].getReference());
+      return (int) node.key;
+    }
+  }
+
+  //iterates the keys from smallest to biggest
+  @Override
+  public PrimitiveIterator.OfInt iterator(){
+    return new Cursor();
+  }
+}
+
+//end of file
@@ -0,0 +1,15 @@
+/*
+long to Object Binary Search Tree Map Class
+Written by Giancarlo Calle
+*/
+
+//A LongObjectAVL that never rebalances, so it keeps the shape of its insert
+//order
+public class LongObjectBST<V> extends LongObjectAVL<V>{
+  //LongObjectBST constructor
+  public LongObjectBST(){
+    super(false);
+  }
+}
+
+//end of file
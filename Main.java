@@ -2,37 +2,28 @@
 Array creation methods and main method.
 Written by Giancarlo Calle
 */
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.PrimitiveIterator;
 import java.util.Random;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class Main{
 
   /*
   ----------------------------------------------------
-  SORT METHOD USING BST
+  SORT METHOD USING AVL
   ----------------------------------------------------
   */
 
-  //sorts an array using properties of a BST
+  //sorts an array using properties of an AVL, keeping duplicates
   static void sort(int[] arr){
-    //creates BST to store values in
-    BST b = new BST();
-
-    //grabs elements from array and stores in BST
-    int i;
-    for(i = 0; i < arr.length; i++){
-      b.insertRec(arr[i]);
-    }
-
-    //extracts to sort
-    int num;
-    for(i = 0; i < arr.length; i++){
-      num = b.findMinRec();
-      arr[i] = num;
-      b.deleteRec(num);
-    }
+    Sort.treeSort(arr);
   }
 
   /*
@@ -80,55 +71,916 @@ public class Main{
   }
 
 
+  /*
+  ----------------------------------------------------
+  BENCHMARK METHODS
+  ----------------------------------------------------
+  */
+
+  //times n iterative inserts followed by n iterative deletes on an AVL and
+  //prints the cost per operation, which should grow with log(n)
+  static void benchmarkAVL(String name, int[] arr){
+    int n = arr.length;
+    AVL a = new AVL();
+
+    //times inserts
+    long start = System.nanoTime();
+    int i;
+    for(i = 0; i < n; i++){
+      a.insertIter(arr[i]);
+    }
+    long insertTime = System.nanoTime() - start;
+
+    //times deletes
+    start = System.nanoTime();
+    for(i = 0; i < n; i++){
+      a.deleteIter(arr[i]);
+    }
+    long deleteTime = System.nanoTime() - start;
+
+    //prints ns per operation and ns per operation divided by log2(n)
+    double log = Math.log(n) / Math.log(2);
+    double insertOp = (double) insertTime / n;
+    double deleteOp = (double) deleteTime / n;
+    System.out.printf("%-7s n=%-9d insert: %8.1f ns/op (%5.2f per log n)"
+      + "  delete: %8.1f ns/op (%5.2f per log n)%n",
+      name, n, insertOp, insertOp / log, deleteOp, deleteOp / log);
+  }
+
+  //times sort and Sort.parallelSort against Arrays.sort on copies of arr and
+  //checks they all agree
+  static void benchmarkSort(String name, int[] arr){
+    int[] tree = Arrays.copyOf(arr, arr.length);
+    int[] parallel = Arrays.copyOf(arr, arr.length);
+    int[] lib = Arrays.copyOf(arr, arr.length);
+
+    long start = System.nanoTime();
+    sort(tree);
+    long treeTime = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    Sort.parallelSort(parallel);
+    long parallelTime = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    Arrays.sort(lib);
+    long libTime = System.nanoTime() - start;
+
+    if(!Arrays.equals(tree, lib) || !Arrays.equals(parallel, lib))
+      throw new IllegalStateException("sort disagrees with Arrays.sort on " + name);
+
+    System.out.printf("%-7s n=%-9d sort: %8.2f ms  parallel: %8.2f ms"
+      + "  Arrays.sort: %8.2f ms%n",
+      name, arr.length, treeTime / 1e6, parallelTime / 1e6, libTime / 1e6);
+  }
+
+  //compares sort against Arrays.sort on random, sorted and reverse inputs
+  static void benchmarkSorts(){
+    //warms up the JIT before recording
+    benchmarkSort("warmup", getRandomArray(100000));
+
+    int n;
+    int[] reverse;
+    int[] sorted;
+    for(n = 10000; n <= 1000000; n *= 10){
+      reverse = getSortedArray(n);
+      sorted = Arrays.copyOf(reverse, n);
+      Arrays.sort(sorted);
+
+      benchmarkSort("random", getRandomArray(n));
+      benchmarkSort("sorted", sorted);
+      benchmarkSort("reverse", reverse);
+    }
+  }
+
+  //runs threads that each do 90% contains, 5% insertIter and 5% deleteIter
+  //of keys for one second and returns the total operations. Calls go to
+  //concurrent if given, otherwise to avl inside synchronized
+  static long benchmarkThreads(int threads, int[] keys, AVL avl,
+    ConcurrentAVL concurrent) throws InterruptedException{
+    AtomicBoolean stop = new AtomicBoolean();
+    long[] ops = new long[threads];
+    Thread[] workers = new Thread[threads];
+
+    int t;
+    for(t = 0; t < threads; t++){
+      final int id = t;
+      workers[t] = new Thread(() -> {
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
+        long count = 0;
+        int key;
+        int op;
+        while(!stop.get()){
+          key = keys[rand.nextInt(keys.length)];
+          op = rand.nextInt(100);
+          if(concurrent != null){
+            if(op < 90)
+              concurrent.contains(key);
+            else if(op < 95)
+              concurrent.insertIter(key);
+            else
+              concurrent.deleteIter(key);
+          }
+          else{
+            synchronized(avl){
+              if(op < 90)
+                avl.contains(key);
+              else if(op < 95)
+                avl.insertIter(key);
+              else
+                avl.deleteIter(key);
+            }
+          }
+          count++;
+        }
+        ops[id] = count;
+      });
+      workers[t].start();
+    }
+
+    Thread.sleep(1000);
+    stop.set(true);
+
+    long total = 0;
+    for(t = 0; t < threads; t++){
+      workers[t].join();
+      total += ops[t];
+    }
+    return total;
+  }
+
+  //runs threads writers that insert and delete random keys on set for a
+  //second, locking set first if lock is set, and returns the ops done
+  static long benchmarkWriters(int threads, int[] keys, OrderedIntSet set,
+    boolean lock) throws InterruptedException{
+    AtomicBoolean stop = new AtomicBoolean();
+    long[] ops = new long[threads];
+    Thread[] workers = new Thread[threads];
+
+    int t;
+    for(t = 0; t < threads; t++){
+      final int id = t;
+      workers[t] = new Thread(() -> {
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
+        long count = 0;
+        int key;
+        boolean insert;
+        while(!stop.get()){
+          key = keys[rand.nextInt(keys.length)];
+          insert = rand.nextBoolean();
+          if(lock){
+            synchronized(set){
+              if(insert)
+                set.insertIter(key);
+              else
+                set.deleteIter(key);
+            }
+          }
+          else if(insert)
+            set.insertIter(key);
+          else
+            set.deleteIter(key);
+          count++;
+        }
+        ops[id] = count;
+      });
+      workers[t].start();
+    }
+
+    Thread.sleep(1000);
+    stop.set(true);
+
+    long total = 0;
+    for(t = 0; t < threads; t++){
+      workers[t].join();
+      total += ops[t];
+    }
+    return total;
+  }
+
+  //compares a synchronized AVL with ConcurrentAVL and LockFreeSkipList
+  //under writers only, doubling the thread count up to 64. Up to the core
+  //count the two concurrent sets should scale while the AVL stays flat,
+  //threads past it show how each holds up when writers are descheduled
+  //mid operation
+  static void benchmarkContention() throws InterruptedException{
+    int n = 1000000;
+    int[] keys = getRandomArray(n);
+
+    //fills the sets with half the keys so inserts and deletes both change them
+    AVL avl = new AVL();
+    ConcurrentAVL concurrent = new ConcurrentAVL();
+    LockFreeSkipList skipList = new LockFreeSkipList();
+    int i;
+    for(i = 0; i < n; i += 2){
+      avl.insertIter(keys[i]);
+      concurrent.insertIter(keys[i]);
+      skipList.insertIter(keys[i]);
+    }
+
+    int threads;
+    for(threads = 1; threads <= 64; threads *= 2){
+      long locked = benchmarkWriters(threads, keys, avl, true);
+      long optimistic = benchmarkWriters(threads, keys, concurrent, false);
+      long lockFree = benchmarkWriters(threads, keys, skipList, false);
+      System.out.printf("writers=%-3d synchronized AVL: %,12d ops/s"
+        + "  ConcurrentAVL: %,12d ops/s  LockFreeSkipList: %,12d ops/s%n",
+        threads, locked, optimistic, lockFree);
+    }
+  }
+
+  //compares a synchronized AVL with ConcurrentAVL on the same keys as the
+  //level counts in main, doubling the thread count up to the core count
+  static void benchmarkConcurrent() throws InterruptedException{
+    int n = 1000000;
+    int[] keys = getRandomArray(n);
+
+    //fills both trees
+    AVL avl = new AVL();
+    ConcurrentAVL concurrent = new ConcurrentAVL();
+    int i;
+    for(i = 0; i < n; i++){
+      avl.insertIter(keys[i]);
+      concurrent.insertIter(keys[i]);
+    }
+
+    int cores = Runtime.getRuntime().availableProcessors();
+    int threads;
+    for(threads = 1; threads <= cores; threads *= 2){
+      long locked = benchmarkThreads(threads, keys, avl, null);
+      long optimistic = benchmarkThreads(threads, keys, null, concurrent);
+      System.out.printf("threads=%-3d synchronized AVL: %,12d ops/s"
+        + "  ConcurrentAVL: %,12d ops/s%n", threads, locked, optimistic);
+    }
+  }
+
+  //returns the heap in use after a full collection
+  static long usedMemory(){
+    Runtime rt = Runtime.getRuntime();
+    System.gc();
+    System.gc();
+    return rt.totalMemory() - rt.freeMemory();
+  }
+
+  //prints the heap bytes per key of an AVL and an ArrayAVL holding n keys
+  static void benchmarkMemory(int n){
+    int[] keys = getRandomArray(n);
+    int i;
+
+    long before = usedMemory();
+    AVL a = new AVL();
+    for(i = 0; i < n; i++){
+      a.insertIter(keys[i]);
+    }
+    long avlBytes = usedMemory() - before;
+    int avlMin = a.findMinIter();
+    a = null;
+
+    before = usedMemory();
+    ArrayAVL array = new ArrayAVL(n);
+    for(i = 0; i < n; i++){
+      array.insertIter(keys[i]);
+    }
+    long arrayBytes = usedMemory() - before;
+
+    //keeps array reachable until it has been measured
+    if(array.findMinIter() != avlMin)
+      throw new IllegalStateException("ArrayAVL and AVL disagree");
+    array = null;
+
+    //the same without sizing it up front, so the arrays grow as it fills
+    before = usedMemory();
+    array = new ArrayAVL();
+    for(i = 0; i < n; i++){
+      array.insertIter(keys[i]);
+    }
+    long grownBytes = usedMemory() - before;
+    if(array.findMinIter() != avlMin)
+      throw new IllegalStateException("ArrayAVL and AVL disagree");
+
+    System.out.printf("n=%d  AVL: %.1f bytes/key  ArrayAVL(n): %.1f bytes/key"
+      + "  ArrayAVL grown: %.1f bytes/key%n", n, (double) avlBytes / n,
+      (double) arrayBytes / n, (double) grownBytes / n);
+  }
+
+  //times building an AVL from n keys with insertIter against bulk loading
+  static void benchmarkBulk(int n){
+    int[] sorted = getSortedArray(n);
+    Arrays.sort(sorted);
+    int[] random = getRandomArray(n);
+
+    long start = System.nanoTime();
+    AVL a = new AVL();
+    int i;
+    for(i = 0; i < n; i++){
+      a.insertIter(sorted[i]);
+    }
+    long insertTime = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    AVL.fromSorted(sorted);
+    long sortedTime = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    AVL.fromUnsorted(random);
+    long unsortedTime = System.nanoTime() - start;
+
+    System.out.printf("bulk    n=%-9d insertIter: %8.2f ms  fromSorted: %8.2f ms"
+      + "  fromUnsorted: %8.2f ms%n",
+      n, insertTime / 1e6, sortedTime / 1e6, unsortedTime / 1e6);
+  }
+
+  //times starting up from a file of n keys: reading it and calling insertIter
+  //on every key against opening it as a MappedIntSet
+  static void benchmarkMapped(int n) throws IOException{
+    AVL a = AVL.fromUnsorted(getRandomArray(n));
+    Path file = Files.createTempFile("tree", ".map");
+    try{
+      long start = System.nanoTime();
+      MappedIntSet.write(a, file);
+      long writeTime = System.nanoTime() - start;
+
+      //rebuilds the tree one key at a time like startup used to
+      start = System.nanoTime();
+      MappedIntSet mapped = MappedIntSet.open(file);
+      AVL rebuilt = new AVL();
+      PrimitiveIterator.OfInt it = mapped.iterator();
+      while(it.hasNext())
+        rebuilt.insertIter(it.nextInt());
+      long insertTime = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      mapped = MappedIntSet.open(file);
+      long openTime = System.nanoTime() - start;
+
+      //the first lookups fault the pages they touch in
+      start = System.nanoTime();
+      int found = 0;
+      int i;
+      for(i = 0; i < 1000; i++){
+        if(mapped.contains(ThreadLocalRandom.current().nextInt()))
+          found++;
+      }
+      long lookupTime = System.nanoTime() - start;
+
+      if(rebuilt.getSize() != a.getSize() || mapped.getSize() != a.getSize())
+        throw new IllegalStateException("mapped tree lost keys");
+      System.out.printf("mapped  n=%-9d write: %8.2f ms  insertIter: %8.2f ms"
+        + "  open: %6.3f ms  first 1000 lookups: %6.3f ms (%d found)%n",
+        n, writeTime / 1e6, insertTime / 1e6, openTime / 1e6, lookupTime / 1e6, found);
+    }
+    finally{
+      Files.delete(file);
+    }
+  }
+
+  //Runs threads writers for a second, each inserting then deleting its own
+  //slice of keys over and over, on durable or on tree if durable is null.
+  //Returns the changes made. A DurableAVL only returns from a change once it
+  //is on disk, so the writers waiting on one fsync share it
+  static long benchmarkDurableWriters(int threads, int[] keys, DurableAVL durable,
+    AVL tree) throws InterruptedException, IOException{
+    AtomicBoolean stop = new AtomicBoolean();
+    long[] ops = new long[threads];
+    IOException[] errors = new IOException[threads];
+    Thread[] workers = new Thread[threads];
+    int per = keys.length / threads;
+
+    int t;
+    for(t = 0; t < threads; t++){
+      final int id = t;
+      workers[t] = new Thread(() -> {
+        long count = 0;
+        int i;
+        boolean insert = true;
+        try{
+          while(!stop.get()){
+            for(i = id * per; i < (id + 1) * per && !stop.get(); i++){
+              if(durable == null){
+                if(insert)
+                  tree.insertIter(keys[i]);
+                else
+                  tree.deleteIter(keys[i]);
+              }
+              else if(insert)
+                durable.insertIter(keys[i]);
+              else
+                durable.deleteIter(keys[i]);
+              count++;
+            }
+            insert = !insert;
+          }
+        }
+        catch(IOException e){
+          errors[id] = e;
+        }
+        ops[id] = count;
+      });
+      workers[t].start();
+    }
+
+    Thread.sleep(1000);
+    stop.set(true);
+
+    long total = 0;
+    for(t = 0; t < threads; t++){
+      workers[t].join();
+      if(errors[t] != null)
+        throw errors[t];
+      total += ops[t];
+    }
+    return total;
+  }
+
+  //compares the changes per second of one writer on an AVL in memory with
+  //growing numbers of writers on a DurableAVL, where each change waits for
+  //the fsync that makes it durable
+  static void benchmarkDurable() throws InterruptedException, IOException{
+    int[] keys = getRandomArray(1000000);
+
+    //warms up the JIT before recording
+    benchmarkDurableWriters(1, keys, null, new AVL());
+    long memory = benchmarkDurableWriters(1, keys, null, new AVL());
+    System.out.printf("durable in memory, 1 writer: %,12d ops/s%n", memory);
+
+    int threads;
+    long durable;
+    for(threads = 1; threads <= 64; threads *= 4){
+      Path dir = Files.createTempDirectory("durable");
+      try{
+        try(DurableAVL d = DurableAVL.open(dir)){
+          durable = benchmarkDurableWriters(threads, keys, d, null);
+        }
+        System.out.printf("durable writers=%-3d          %,12d ops/s  (%.1fx slower)%n",
+          threads, durable, (double) memory / durable);
+      }
+      finally{
+        for(String name : new String[]{DurableAVL.WAL, DurableAVL.OLD_WAL,
+            DurableAVL.SNAPSHOT})
+          Files.deleteIfExists(dir.resolve(name));
+        Files.delete(dir);
+      }
+    }
+  }
+
+  //times merging an AVL of m random keys into one of n random keys, by
+  //iterating one and inserting into the other against union, and prints how
+  //long intersection and difference take on the same trees
+  static void benchmarkSetAlgebra(int n, int m){
+    int[] keys = getRandomArray(n + m);
+    int[] a = Arrays.copyOfRange(keys, 0, n);
+    int[] b = Arrays.copyOfRange(keys, n - m / 2, n + m / 2);
+
+    AVL big = AVL.fromUnsorted(a);
+    AVL small = AVL.fromUnsorted(b);
+    long start = System.nanoTime();
+    PrimitiveIterator.OfInt it = small.iterator();
+    while(it.hasNext())
+      big.insertIter(it.nextInt());
+    long insertTime = System.nanoTime() - start;
+    int expected = big.getSize();
+
+    big = AVL.fromUnsorted(a);
+    small = AVL.fromUnsorted(b);
+    start = System.nanoTime();
+    big.union(small);
+    long unionTime = System.nanoTime() - start;
+    if(big.getSize() != expected)
+      throw new IllegalStateException("union and insertIter disagree");
+
+    big = AVL.fromUnsorted(a);
+    small = AVL.fromUnsorted(b);
+    start = System.nanoTime();
+    big.intersection(small);
+    long intersectionTime = System.nanoTime() - start;
+
+    big = AVL.fromUnsorted(a);
+    small = AVL.fromUnsorted(b);
+    start = System.nanoTime();
+    big.difference(small);
+    long differenceTime = System.nanoTime() - start;
+
+    System.out.printf("sets    n=%-9d m=%-9d insertIter: %8.2f ms  union: %8.2f ms"
+      + "  intersection: %8.2f ms  difference: %8.2f ms%n", n, m, insertTime / 1e6,
+      unionTime / 1e6, intersectionTime / 1e6, differenceTime / 1e6);
+  }
+
+  //times adding then removing a batch of m random keys to an AVL of n keys,
+  //one insertIter/deleteIter at a time against insertAll/deleteAll
+  static void benchmarkBatch(int n, int m){
+    int[] keys = getRandomArray(n + m);
+    int[] base = Arrays.copyOf(keys, n);
+    int[] batch = Arrays.copyOfRange(keys, n, n + m);
+    AVL single = AVL.fromUnsorted(base);
+    AVL batched = AVL.fromUnsorted(base);
+    int i;
+
+    long start = System.nanoTime();
+    for(i = 0; i < m; i++){
+      single.insertIter(batch[i]);
+    }
+    for(i = 0; i < m; i++){
+      single.deleteIter(batch[i]);
+    }
+    long singleTime = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    batched.insertAll(batch);
+    batched.deleteAll(batch);
+    long batchTime = System.nanoTime() - start;
+
+    System.out.printf("batch   n=%-9d m=%-7d one at a time: %8.2f ms"
+      + "  insertAll/deleteAll: %8.2f ms%n",
+      n, m, singleTime / 1e6, batchTime / 1e6);
+  }
+
+  //inserts, looks up and deletes keys in tree, returning the time taken
+  static long runAVL(AVL tree, int[] keys){
+    long start = System.nanoTime();
+    int i;
+    for(i = 0; i < keys.length; i++)
+      tree.insertIter(keys[i]);
+    for(i = 0; i < keys.length; i++)
+      tree.contains(keys[i]);
+    for(i = 0; i < keys.length; i++)
+      tree.deleteIter(keys[i]);
+    return System.nanoTime() - start;
+  }
+
+  //times an AVL with metrics off and on over the same n keys, then prints
+  //what the metrics recorded
+  static void benchmarkMetrics(int n){
+    int[] keys = getRandomArray(n);
+    TreeMetrics metrics = new TreeMetrics();
+
+    //warms up both paths before recording
+    runAVL(new AVL(), keys);
+    AVL warm = new AVL();
+    warm.setMetrics(metrics);
+    runAVL(warm, keys);
+    metrics.reset();
+
+    long off = runAVL(new AVL(), keys);
+    AVL tree = new AVL();
+    tree.setMetrics(metrics);
+    long on = runAVL(tree, keys);
+
+    System.out.printf("metrics n=%-9d off: %8.2f ms  on: %8.2f ms%n",
+      n, off / 1e6, on / 1e6);
+    System.out.print(metrics);
+  }
+
+  //times m random lookups of an AVL of n keys against Arrays.binarySearch on
+  //the sorted keys and the FrozenIntSet from AVL.freeze()
+  static void benchmarkFrozen(int n, int m){
+    //draws keys without a HashSet, which wouldn't fit beside the tree
+    Random rand = new Random();
+    int[] keys = new int[n];
+    int i;
+    for(i = 0; i < n; i++)
+      keys[i] = rand.nextInt();
+    AVL tree = AVL.fromUnsorted(keys);
+    int[] sorted = new int[tree.getSize()];
+    tree.inorderIter(sorted);
+    FrozenIntSet frozen = tree.freeze();
+
+    //half the queries are keys in the set
+    int[] queries = new int[m];
+    for(i = 0; i < m; i++)
+      queries[i] = (i % 2 == 0 ? keys[rand.nextInt(n)] : rand.nextInt());
+
+    //runs each twice, recording the second so the JIT has compiled it
+    long treeTime = 0;
+    long searchTime = 0;
+    long frozenTime = 0;
+    int[] found = new int[3];
+    int rep;
+    long start;
+    for(rep = 0; rep < 2; rep++){
+      found[0] = 0;
+      found[1] = 0;
+      found[2] = 0;
+      start = System.nanoTime();
+      for(i = 0; i < m; i++){
+        if(tree.contains(queries[i]))
+          found[0]++;
+      }
+      treeTime = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for(i = 0; i < m; i++){
+        if(Arrays.binarySearch(sorted, queries[i]) >= 0)
+          found[1]++;
+      }
+      searchTime = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for(i = 0; i < m; i++){
+        if(frozen.contains(queries[i]))
+          found[2]++;
+      }
+      frozenTime = System.nanoTime() - start;
+    }
+    if(found[0] != found[1] || found[0] != found[2])
+      throw new IllegalStateException("lookups disagree");
+
+    System.out.printf("frozen  n=%-9d m=%-9d AVL.contains: %8.2f ms"
+      + "  Arrays.binarySearch: %8.2f ms  FrozenIntSet.contains: %8.2f ms%n",
+      n, m, treeTime / 1e6, searchTime / 1e6, frozenTime / 1e6);
+  }
+
+  //times m random lookups of an AVL of n keys and its FrozenIntSet, one key
+  //at a time against containsAll and rankAll on batches of batch keys
+  static void benchmarkBatchLookups(int n, int m, int batch){
+    Random rand = new Random();
+    int[] keys = new int[n];
+    int i;
+    for(i = 0; i < n; i++)
+      keys[i] = rand.nextInt();
+    AVL tree = AVL.fromUnsorted(keys);
+    FrozenIntSet frozen = tree.freeze();
+
+    //half the queries are keys in the set
+    int[] queries = new int[m];
+    for(i = 0; i < m; i++)
+      queries[i] = (i % 2 == 0 ? keys[rand.nextInt(n)] : rand.nextInt());
+    int[] request = new int[batch];
+    boolean[] found = new boolean[batch];
+    int[] ranks = new int[batch];
+
+    //[AVL, frozen][contains, rank][one at a time, batched]
+    long[][][] times = new long[2][2][2];
+    long sum = 0;
+    long start;
+    int rep;
+    int from;
+    int s;
+    int kind;
+    for(rep = 0; rep < 2; rep++){
+      for(s = 0; s < 2; s++){
+        for(kind = 0; kind < 2; kind++){
+          //one at a time
+          start = System.nanoTime();
+          for(i = 0; i < m; i++){
+            if(kind == 0)
+              sum += ((s == 0 ? tree.contains(queries[i]) : frozen.contains(queries[i])) ? 1 : 0);
+            else
+              sum += (s == 0 ? tree.rank(queries[i]) : frozen.rank(queries[i]));
+          }
+          times[s][kind][0] = System.nanoTime() - start;
+
+          //batched like a request handler would
+          start = System.nanoTime();
+          for(from = 0; from + batch <= m; from += batch){
+            System.arraycopy(queries, from, request, 0, batch);
+            if(kind == 0){
+              if(s == 0)
+                tree.containsAll(request, found);
+              else
+                frozen.containsAll(request, found);
+              for(i = 0; i < batch; i++)
+                sum -= (found[i] ? 1 : 0);
+            }
+            else{
+              if(s == 0)
+                tree.rankAll(request, ranks);
+              else
+                frozen.rankAll(request, ranks);
+              for(i = 0; i < batch; i++)
+                sum -= ranks[i];
+            }
+          }
+          times[s][kind][1] = System.nanoTime() - start;
+        }
+      }
+    }
+    if(sum != 0)
+      throw new IllegalStateException("batched lookups disagree");
+
+    System.out.printf("lookups n=%-9d batch=%-5d AVL contains: %8.2f / %8.2f ms"
+      + "  rank: %8.2f / %8.2f ms%n", n, batch, times[0][0][0] / 1e6,
+      times[0][0][1] / 1e6, times[0][1][0] / 1e6, times[0][1][1] / 1e6);
+    System.out.printf("%-32s frozen contains: %8.2f / %8.2f ms  rank: %8.2f / %8.2f ms%n",
+      "", times[1][0][0] / 1e6, times[1][0][1] / 1e6, times[1][1][0] / 1e6,
+      times[1][1][1] / 1e6);
+  }
+
+  //runs the AVL benchmark on growing random and sorted inputs
+  static void benchmark(){
+    //warms up the JIT before recording
+    benchmarkAVL("warmup", getRandomArray(100000));
+
+    int n;
+    for(n = 10000; n <= 1000000; n *= 10){
+      benchmarkAVL("random", getRandomArray(n));
+      benchmarkAVL("sorted", getSortedArray(n));
+    }
+    benchmarkBulk(1000000);
+    benchmarkBatch(1000000, 10000);
+    benchmarkBatch(1000000, 100000);
+  }
+
+  //returns one empty tree of every kind, in the order they are printed
+  static OrderedIntSet[] newSets(){
+    return new OrderedIntSet[]{new BST(), new AVL(), new RedBlack(),
+      new Treap(), new Splay(), new BPlusTree()};
+  }
+
+  //prints the levels each tree traversed since before, or in total if
+  //before is null
+  static void printLevels(OrderedIntSet[] sets, long[] before){
+    int s;
+    long levels;
+    for(s = 0; s < sets.length; s++){
+      levels = sets[s].getLevels();
+      if(before != null)
+        levels -= before[s];
+      System.out.println(sets[s].getClass().getName() + ": " + levels);
+    }
+    System.out.print("\n");
+  }
+
+  //checks AVL.percentile on the keys 1 to 100, where the p-th percentile
+  //by nearest rank is p itself
+  static void checkPercentiles(){
+    AVL tree = new AVL();
+    int p;
+    for(p = 1; p <= 100; p++){
+      tree.insertIter(p);
+    }
+    if(tree.percentile(0) != 1)
+      throw new IllegalStateException("percentile 0 of 1 to 100 is " + tree.percentile(0));
+    for(p = 1; p <= 100; p++){
+      if(tree.percentile(p) != p)
+        throw new IllegalStateException("percentile " + p + " of 1 to 100 is "
+          + tree.percentile(p));
+    }
+  }
+
+  //Checks LatencyHistogram.percentile on the latencies 1 to 100 ns, where
+  //the p-th percentile by nearest rank is p rounded up to the end of its
+  //bucket. Values below 32 ns get buckets of their own so they come back
+  //exact, above that a power of two range [2^k, 2^(k+1)) is split into 16
+  //buckets 2^k / 16 wide
+  static void checkHistogram(){
+    LatencyHistogram histogram = new LatencyHistogram();
+    int p;
+    for(p = 1; p <= 100; p++){
+      histogram.record(p);
+    }
+    long width;
+    long expected;
+    for(p = 1; p <= 100; p++){
+      width = Math.max(1, Integer.highestOneBit(p) / 16);
+      expected = p | (width - 1);
+      if(p < 32 && expected != p)
+        throw new IllegalStateException("latency " + p + " ns is not in a bucket of its own");
+      if(histogram.percentile(p) != expected)
+        throw new IllegalStateException("percentile " + p + " of 1 to 100 ns is "
+          + histogram.percentile(p) + ", expected " + expected);
+    }
+  }
+
+  //checks union, intersection and difference of the keys 1 to 10 with the
+  //same tree, which must keep all 10 keys, all 10 and none of them
+  static void checkSelfSetAlgebra(){
+    String[] names = {"union", "intersection", "difference"};
+    int[] expected = {10, 10, 0};
+    AVL tree;
+    int op;
+    int i;
+    for(op = 0; op < names.length; op++){
+      tree = new AVL();
+      for(i = 1; i <= 10; i++){
+        tree.insertIter(i);
+      }
+      if(op == 0)
+        tree.union(tree);
+      else if(op == 1)
+        tree.intersection(tree);
+      else
+        tree.difference(tree);
+      if(tree.getSize() != expected[op])
+        throw new IllegalStateException(names[op] + " of 1 to 10 with itself has "
+          + tree.getSize() + " keys");
+      for(i = 1; i <= 10; i++){
+        if(tree.contains(i) != (expected[op] > 0))
+          throw new IllegalStateException(names[op] + " of 1 to 10 with itself "
+            + (expected[op] > 0 ? "lost " : "kept ") + i);
+      }
+    }
+  }
+
   /*
   ----------------------------------------------------
   MAIN METHOD
   ----------------------------------------------------
   */
 
-  public static void main(String arg[]){
-    //creates BST and AVL to store random numbers in recursively and iteratively
-    BST bTest = new BST();
-    BST bRandom = new BST();
-    AVL aRandom = new AVL();
+  public static void main(String arg[]) throws InterruptedException, IOException{
+    //runs benchmark mode instead of the level counts
+    if(arg.length > 0 && arg[0].equals("bench")){
+      benchmark();
+      return;
+    }
+    if(arg.length > 0 && arg[0].equals("sort")){
+      benchmarkSorts();
+      return;
+    }
+    if(arg.length > 0 && arg[0].equals("memory")){
+      benchmarkMemory(1000000);
+      return;
+    }
+    if(arg.length > 0 && arg[0].equals("concurrent")){
+      benchmarkConcurrent();
+      return;
+    }
+    if(arg.length > 0 && arg[0].equals("contention")){
+      benchmarkContention();
+      return;
+    }
+    if(arg.length > 0 && arg[0].equals("metrics")){
+      benchmarkMetrics(1000000);
+      return;
+    }
+    if(arg.length > 0 && arg[0].equals("frozen")){
+      int n;
+      for(n = 10000; n <= 10000000; n *= 10)
+        benchmarkFrozen(n, 10000000);
+      return;
+    }
+    if(arg.length > 0 && arg[0].equals("lookups")){
+      benchmarkBatchLookups(1000000, 4194304, 1024);
+      benchmarkBatchLookups(10000000, 4194304, 1024);
+      return;
+    }
+    if(arg.length > 0 && arg[0].equals("durable")){
+      benchmarkDurable();
+      return;
+    }
+    if(arg.length > 0 && arg[0].equals("sets")){
+      //runs everything twice, the first time warms up the JIT
+      benchmarkSetAlgebra(1000000, 1000);
+      benchmarkSetAlgebra(1000000, 1000000);
+      benchmarkSetAlgebra(1000000, 1000);
+      benchmarkSetAlgebra(1000000, 1000000);
+      return;
+    }
+    if(arg.length > 0 && arg[0].equals("mapped")){
+      benchmarkMapped(1000000);
+      benchmarkMapped(10000000);
+      return;
+    }
+
+    checkPercentiles();
+    checkHistogram();
+    checkSelfSetAlgebra();
+
+    //inserts recursively into a BST to check recursion still works
+    BST bTest = new BST(true);
 
     //creates random array of size n
     int n = 10000;
     int[] arr = getRandomArray(n);
-
-    //inserts into BST and AVL
     int i;
     for(i = 0; i < n; i++){
-      //inserts iteratively
-      aRandom.insertIter(arr[i]);
-      bRandom.insertIter(arr[i]);
-
-      //inserts recursively
       bTest.insertRec(arr[i]);
     }
 
-    //prints levels traversed
+    //inserts iteratively into every tree
+    OrderedIntSet[] random = newSets();
+    for(OrderedIntSet set : random){
+      for(i = 0; i < n; i++){
+        set.insertIter(arr[i]);
+      }
+    }
     System.out.println("Number of levels traversed from random numbers:");
-    System.out.println("BST: " + bRandom.getLevels());
-    System.out.println("AVL: " + aRandom.getLevels() + "\n");
-
-    //creates BST and AVL to store numbers from a sorted array
-    BST bSorted = new BST();
-    AVL aSorted = new AVL();
+    printLevels(random, null);
 
     //creates sorted array of size n (defined above)
     int[] sorted = getSortedArray(n);
 
-    //inserts iteratively into BST and AVL
-    for(i = 0; i < n; i++){
-      aSorted.insertIter(sorted[i]);
-      bSorted.insertIter(sorted[i]);
+    //inserts iteratively into every tree
+    OrderedIntSet[] sets = newSets();
+    for(OrderedIntSet set : sets){
+      for(i = 0; i < n; i++){
+        set.insertIter(sorted[i]);
+      }
     }
-
     System.out.println("Number of levels traversed from sorted numbers:");
-    System.out.println("BST: " + bSorted.getLevels());
-    System.out.println("AVL: " + aSorted.getLevels());
+    printLevels(sets, null);
 
+    //looks up every sorted number, only counting levels traversed by lookups
+    long[] before = new long[sets.length];
+    int s;
+    for(s = 0; s < sets.length; s++){
+      before[s] = sets[s].getLevels();
+      for(i = 0; i < n; i++){
+        sets[s].contains(sorted[i]);
+      }
+    }
+    System.out.println("Number of levels traversed looking up sorted numbers:");
+    printLevels(sets, before);
   }
 
 }
@@ -0,0 +1,298 @@
+/*
+Memory Mapped Read Only Int Set Class
+Written by Giancarlo Calle
+*/
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+public class MappedIntSet{
+  //File layout, little endian: a 16 byte header of MAGIC, VERSION, the key
+  //count and a reserved int, then the keys in ascending order. A sorted array
+  //needs no pointers, so the file is 4 bytes per key and can be searched
+  //straight from the mapping without building anything at open
+  static final int MAGIC = 0x45455254;
+  static final int VERSION = 1;
+  static final int HEADER_BYTES = 16;
+
+  //keys written per buffer when saving
+  private static final int WRITE_KEYS = 1 << 14;
+
+  //keys in the file, read from the mapping on demand by the OS
+  private final IntBuffer keys;
+  private final int size;
+
+  private MappedIntSet(IntBuffer keys){
+    this.keys = keys;
+    this.size = keys.limit();
+    this.levels = 0;
+  }
+
+  //number of keys in the set
+  public int getSize(){
+    return size;
+  }
+
+  //records the amount of levels of the binary search traversed w/ methods
+  long levels;
+  public long getLevels(){
+    return levels;
+  }
+
+  /*
+  ----------------------------------------------------
+  SAVING AND OPENING
+  ----------------------------------------------------
+  */
+
+  //writes the keys of set to file in the mapped format, replacing the file
+  static void write(OrderedIntSet set, Path file) throws IOException{
+    write(set.iterator(), set.getSize(), file);
+  }
+
+  //Writes count ascending keys from it to file in the mapped format,
+  //replacing the file. The file is forced to disk before returning. Throws
+  //IllegalArgumentException if it doesn't give exactly count keys, leaving
+  //the file empty so open() rejects it
+  static void write(PrimitiveIterator.OfInt it, int count, Path file) throws IOException{
+    try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+      ByteBuffer buf = ByteBuffer.allocateDirect(WRITE_KEYS * 4).order(ByteOrder.LITTLE_ENDIAN);
+      buf.putInt(MAGIC);
+      buf.putInt(VERSION);
+      buf.putInt(count);
+      buf.putInt(0);
+
+      //streams the keys in order a buffer at a time
+      int written = 0;
+      while(it.hasNext()){
+        if(written == count){
+          channel.truncate(0);
+          throw new IllegalArgumentException("more than the " + count + " keys expected");
+        }
+        if(!buf.hasRemaining())
+          flush(channel, buf);
+        buf.putInt(it.nextInt());
+        written++;
+      }
+      if(written != count){
+        channel.truncate(0);
+        throw new IllegalArgumentException(written + " keys written, expected " + count);
+      }
+      flush(channel, buf);
+      channel.force(false);
+    }
+  }
+
+  //writes everything put in buf to channel and empties buf
+  private static void flush(FileChannel channel, ByteBuffer buf) throws IOException{
+    buf.flip();
+    while(buf.hasRemaining())
+      channel.write(buf);
+    buf.clear();
+  }
+
+  //maps file without reading its keys, so opening takes the same time
+  //whatever the size. Throws IOException if file isn't in the mapped format
+  static MappedIntSet open(Path file) throws IOException{
+    try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+      long bytes = channel.size();
+      if(bytes > Integer.MAX_VALUE)
+        throw new IOException(file + " is too big to map in one buffer");
+
+      //the mapping stays valid after the channel is closed
+      MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, bytes);
+      map.order(ByteOrder.LITTLE_ENDIAN);
+      checkHeader(file, map, bytes);
+
+      map.position(HEADER_BYTES);
+      return new MappedIntSet(map.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer());
+    }
+  }
+
+  //Reads the keys of file into a heap array instead of mapping it, for
+  //callers that go on to replace or delete the file: a mapping stays
+  //reachable until it is garbage collected, and some platforms refuse to
+  //replace a mapped file. Throws IOException if file isn't in the mapped
+  //format
+  static int[] readKeys(Path file) throws IOException{
+    try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+      long bytes = channel.size();
+      ByteBuffer buf = ByteBuffer.allocate(WRITE_KEYS * 4).order(ByteOrder.LITTLE_ENDIAN);
+      buf.limit((int) Math.min(HEADER_BYTES, bytes));
+      readFully(channel, buf, file);
+      checkHeader(file, buf, bytes);
+
+      //reads the keys a buffer at a time
+      int[] keys = new int[buf.getInt(8)];
+      int read = 0;
+      int count;
+      while(read < keys.length){
+        count = Math.min(WRITE_KEYS, keys.length - read);
+        buf.clear().limit(count * 4);
+        readFully(channel, buf, file);
+        buf.flip();
+        buf.asIntBuffer().get(keys, read, count);
+        read += count;
+      }
+      return keys;
+    }
+  }
+
+  //fills buf from its position to its limit with the next bytes of channel
+  private static void readFully(FileChannel channel, ByteBuffer buf, Path file) throws IOException{
+    while(buf.hasRemaining()){
+      if(channel.read(buf) < 0)
+        throw new IOException(file + " ended early");
+    }
+  }
+
+  //checks the header at the start of buf against a file of bytes bytes.
+  //Throws IOException if file isn't in the mapped format
+  private static void checkHeader(Path file, ByteBuffer buf, long bytes) throws IOException{
+    if(bytes < HEADER_BYTES)
+      throw new IOException(file + " is too short to be a mapped tree");
+    if(buf.getInt(0) != MAGIC)
+      throw new IOException(file + " is not a mapped tree");
+    if(buf.getInt(4) != VERSION)
+      throw new IOException(file + " has unknown version " + buf.getInt(4));
+    int count = buf.getInt(8);
+    if(count < 0 || HEADER_BYTES + 4L * count != bytes)
+      throw new IOException(file + " holds " + bytes + " bytes, expected "
+        + (HEADER_BYTES + 4L * count) + " for " + count + " keys");
+  }
+
+  //copies the keys into a new AVL, bulk loaded in O(n) instead of n inserts
+  AVL toAVL(){
+    int[] arr = new int[size];
+    inorderIter(arr, 0);
+    return AVL.fromSorted(arr);
+  }
+
+  /*
+  ----------------------------------------------------
+  ITERATIVE METHODS
+  ----------------------------------------------------
+  */
+
+  //returns the index of the first key bigger than or equal to val, size if
+  //there is none
+  private int search(int val){
+    int lo = 0;
+    int hi = size;
+    int mid;
+    while(lo < hi){
+      mid = (lo + hi) >>> 1;
+      if(keys.get(mid) < val)
+        lo = mid + 1;
+      else
+        hi = mid;
+
+      //records number of levels traversed
+      levels++;
+    }
+    return lo;
+  }
+
+  //returns whether val is in the set
+  boolean contains(int val){
+    int i = search(val);
+    return i < size && keys.get(i) == val;
+  }
+
+  //finds the biggest key that is smaller than or equal to val, null if none
+  Integer floor(int val){
+    int i = search(val);
+    if(i < size && keys.get(i) == val)
+      return val;
+    return (i > 0 ? keys.get(i - 1) : null);
+  }
+
+  //finds the smallest key that is bigger than or equal to val, null if none
+  Integer ceiling(int val){
+    int i = search(val);
+    return (i < size ? keys.get(i) : null);
+  }
+
+  //finds the biggest key that is strictly smaller than val, null if none
+  Integer lower(int val){
+    int i = search(val);
+    return (i > 0 ? keys.get(i - 1) : null);
+  }
+
+  //finds the smallest key that is strictly bigger than val, null if none
+  Integer higher(int val){
+    if(val == Integer.MAX_VALUE)
+      return null;
+    return ceiling(val + 1);
+  }
+
+  //finds the minimum number in the set
+  int findMinIter(){
+    if(size == 0)
+      throw new NoSuchElementException();
+    return keys.get(0);
+  }
+
+  //finds the maximum number in the set
+  int findMaxIter(){
+    if(size == 0)
+      throw new NoSuchElementException();
+    return keys.get(size - 1);
+  }
+
+  //writes the set into arr in order starting at index from, returns the
+  //number written
+  int inorderIter(int[] arr, int from){
+    keys.get(0, arr, from, size);
+    return size;
+  }
+
+  /*
+  ----------------------------------------------------
+  ITERATORS
+  ----------------------------------------------------
+  */
+
+  //iterator over the keys in order, reading the mapping sequentially
+  private class Cursor implements PrimitiveIterator.OfInt{
+    private int index;
+
+    Cursor(int index){
+      this.index = index;
+    }
+
+    @Override
+    public boolean hasNext(){
+      return index < size;
+    }
+
+    @Override
+    public int nextInt(){
+      if(index >= size)
+        throw new NoSuchElementException();
+      int val = keys.get(index);
+      index++;
+      return val;
+    }
+  }
+
+  //iterates the keys from smallest to biggest
+  PrimitiveIterator.OfInt iterator(){
+    return new Cursor(0);
+  }
+
+  //iterates the keys bigger than or equal to val from smallest to biggest
+  PrimitiveIterator.OfInt iteratorFrom(int val){
+    return new Cursor(search(val));
+  }
+}
+
+//end of file
@@ -0,0 +1,50 @@
+/*
+Ordered Int Set Interface
+Written by Giancarlo Calle
+*/
+import java.util.PrimitiveIterator;
+
+//Methods every ordered tree of ints shares, so call sites and benchmarks
+//can swap one tree for another without changing. A set filled through
+//insertIter holds each key once. AVL can also hold copies added by its own
+//insertDupIter, outside this interface: on such a tree getSize(),
+//inorderIter and iterator() count and return every copy, and deleteIter
+//removes one copy at a time
+public interface OrderedIntSet{
+  //inserts val if it is not in the set yet
+  void insertIter(int val);
+
+  //deletes val if it is in the set
+  void deleteIter(int val);
+
+  //returns whether val is in the set
+  boolean contains(int val);
+
+  //returns the smallest key that is strictly bigger than val, null if none
+  Integer findNextIter(int val);
+
+  //returns the biggest key that is strictly smaller than val, null if none
+  Integer findPrevIter(int val);
+
+  //returns the smallest key, throws NoSuchElementException if the set is empty
+  int findMinIter();
+
+  //returns the biggest key, throws NoSuchElementException if the set is empty
+  int findMaxIter();
+
+  //writes the keys into arr in order starting at index from, returns the
+  //number written
+  int inorderIter(int[] arr, int from);
+
+  //iterates the keys from smallest to biggest
+  PrimitiveIterator.OfInt iterator();
+
+  //returns the number of keys in the set
+  int getSize();
+
+  //returns the amount of levels of the tree traversed so far, a long since
+  //long runs walk past 2^31 levels
+  long getLevels();
+}
+
+//end of file
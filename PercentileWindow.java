@@ -0,0 +1,52 @@
+/*
+Sliding window percentiles backed by an AVL
+Written by Giancarlo Calle
+*/
+
+public class PercentileWindow{
+  //samples in arrival order, the oldest is overwritten when full
+  private final int[] samples;
+  private int next;
+  private int count;
+
+  //the same samples kept in order, duplicates included
+  private final AVL tree = new AVL();
+
+  //PercentileWindow constructor, keeps the last capacity samples
+  public PercentileWindow(int capacity){
+    if(capacity < 1)
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    samples = new int[capacity];
+  }
+
+  //adds a sample, dropping the oldest one once the window is full. O(log n)
+  void add(int sample){
+    if(count == samples.length)
+      tree.deleteIter(samples[next]);
+    else
+      count++;
+
+    samples[next] = sample;
+    next++;
+    if(next == samples.length)
+      next = 0;
+    tree.insertDupIter(sample);
+  }
+
+  //returns the number of samples in the window
+  int getCount(){
+    return count;
+  }
+
+  //returns the lower median of the window in O(log n)
+  int median(){
+    return tree.median();
+  }
+
+  //returns the p-th percentile (0 to 100) of the window in O(log n)
+  int percentile(double p){
+    return tree.percentile(p);
+  }
+}
+
+//end of file
@@ -0,0 +1,364 @@
+/*
+Persistent AVL Tree Class
+Written by Giancarlo Calle
+*/
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+//An AVL whose versions never change. insert() and delete() copy only the
+//nodes on the path to the key, O(log n) of them, and return a new version
+//sharing every other node with the old one. Taking a snapshot is keeping a
+//reference to a version, and any number of threads can read any version
+//without locks. VersionedAVL holds the current version for threads sharing
+//a tree, publishing new ones with compareAndSet
+public final class PersistentAVL{
+  //Node struct used in the tree, fixed once created so it can be shared
+  static final class Node{
+    final int data;
+    final Node right;
+    final Node left;
+
+    //height of the subtree rooted at this node, leaves are 0
+    final int height;
+
+    //number of nodes in the subtree rooted at this node
+    final int subtreeSize;
+
+    //Node constructor, children must already be balanced
+    Node(int data, Node left, Node right){
+      this.data = data;
+      this.left = left;
+      this.right = right;
+      int l = height(left);
+      int r = height(right);
+      this.height = (l > r ? l : r) + 1;
+      this.subtreeSize = subtreeSize(left) + subtreeSize(right) + 1;
+    }
+  }
+
+  //the empty tree, every tree starts from it
+  static final PersistentAVL EMPTY = new PersistentAVL(null);
+
+  //root of this version. Versions keep no level count since they are shared
+  //between threads and never written after they are created
+  final Node root;
+
+  private PersistentAVL(Node root){
+    this.root = root;
+  }
+
+  //number of nodes in the tree
+  public int getSize(){
+    return subtreeSize(root);
+  }
+
+  //returns the cached height of a node, null nodes are -1
+  private static int height(Node node){
+    return (node == null ? -1 : node.height);
+  }
+
+  //returns the number of nodes under node, null nodes are 0
+  private static int subtreeSize(Node node){
+    return (node == null ? 0 : node.subtreeSize);
+  }
+
+  /*
+  ----------------------------------------------------
+  BALANCING
+  ----------------------------------------------------
+  */
+
+  //new node for a right rotation of a node holding data with these children
+  private static Node rotationR(int data, Node left, Node right){
+    return new Node(left.data, left.left, new Node(data, left.right, right));
+  }
+
+  //new node for a left rotation of a node holding data with these children
+  private static Node rotationL(int data, Node left, Node right){
+    return new Node(right.data, new Node(data, left, right.left), right.right);
+  }
+
+  //builds a balanced node holding data over two balanced subtrees whose
+  //heights differ by at most 2, rotating copies instead of the nodes
+  private static Node balance(int data, Node left, Node right){
+    int bf = height(left) - height(right);
+
+    if(bf > 1){ //node is left heavy
+      if(height(left.left) < height(left.right)) //left node is right heavy
+        left = rotationL(left.data, left.left, left.right);
+      return rotationR(data, left, right);
+    }
+
+    if(bf < -1){ //node is right heavy
+      if(height(right.right) < height(right.left)) //right node is left heavy
+        right = rotationR(right.data, right.left, right.right);
+      return rotationL(data, left, right);
+    }
+
+    return new Node(data, left, right);
+  }
+
+  /*
+  ----------------------------------------------------
+  UPDATES
+  ----------------------------------------------------
+  */
+
+  //returns a version with val added, this version if val is already in it
+  PersistentAVL insert(int val){
+    Node node = insertHelper(root, val);
+    return (node == root ? this : new PersistentAVL(node));
+  }
+
+  //returns a version without val, this version if val is not in it
+  PersistentAVL delete(int val){
+    Node node = deleteHelper(root, val);
+    return (node == root ? this : new PersistentAVL(node));
+  }
+
+  //Returns node's subtree with val added, node itself if val is already in
+  //it. Recursion is bounded by the height of the tree, about 1.44 log2(n)
+  private static Node insertHelper(Node node, int val){
+    if(node == null)
+      return new Node(val, null, null);
+    if(node.data == val)
+      return node;
+
+    Node child;
+    if(val < node.data){
+      child = insertHelper(node.left, val);
+      if(child == node.left)
+        return node;
+      return balance(node.data, child, node.right);
+    }
+    child = insertHelper(node.right, val);
+    if(child == node.right)
+      return node;
+    return balance(node.data, node.left, child);
+  }
+
+  //returns node's subtree without val, node itself if val is not in it
+  private static Node deleteHelper(Node node, int val){
+    if(node == null)
+      return null;
+
+    Node child;
+    if(val < node.data){
+      child = deleteHelper(node.left, val);
+      if(child == node.left)
+        return node;
+      return balance(node.data, child, node.right);
+    }
+    if(val > node.data){
+      child = deleteHelper(node.right, val);
+      if(child == node.right)
+        return node;
+      return balance(node.data, node.left, child);
+    }
+
+    //case: node has at most one child, which takes its place
+    if(node.left == null)
+      return node.right;
+    if(node.right == null)
+      return node.left;
+
+    //case: two children, the successor takes node's place
+    Node successor = node.right;
+    while(successor.left != null)
+      successor = successor.left;
+    return balance(successor.data, node.left, deleteMinHelper(node.right));
+  }
+
+  //returns node's subtree without its smallest node
+  private static Node deleteMinHelper(Node node){
+    if(node.left == null)
+      return node.right;
+    return balance(node.data, deleteMinHelper(node.left), node.right);
+  }
+
+  /*
+  ----------------------------------------------------
+  LOOKUPS
+  ----------------------------------------------------
+  */
+
+  //returns whether val is in the tree
+  boolean contains(int val){
+    Node curr = root;
+    while(curr != null){
+      if(curr.data == val)
+        return true;
+      if(curr.data > val)
+        curr = curr.left;
+      else
+        curr = curr.right;
+    }
+    return false;
+  }
+
+  //finds the biggest key that is smaller than or equal to val, null if none
+  Integer floor(int val){
+    Node curr = root;
+    Node best = null;
+    while(curr != null){
+      if(curr.data == val)
+        return val;
+      if(curr.data > val)
+        curr = curr.left;
+      else{
+        best = curr;
+        curr = curr.right;
+      }
+    }
+    return (best == null ? null : best.data);
+  }
+
+  //finds the smallest key that is bigger than or equal to val, null if none
+  Integer ceiling(int val){
+    Node curr = root;
+    Node best = null;
+    while(curr != null){
+      if(curr.data == val)
+        return val;
+      if(curr.data < val)
+        curr = curr.right;
+      else{
+        best = curr;
+        curr = curr.left;
+      }
+    }
+    return (best == null ? null : best.data);
+  }
+
+  //finds the biggest key that is strictly smaller than val, null if none
+  Integer lower(int val){
+    if(val == Integer.MIN_VALUE)
+      return null;
+    return floor(val - 1);
+  }
+
+  //finds the smallest key that is strictly bigger than val, null if none
+  Integer higher(int val){
+    if(val == Integer.MAX_VALUE)
+      return null;
+    return ceiling(val + 1);
+  }
+
+  //returns the number of keys smaller than val
+  int rank(int val){
+    Node curr = root;
+    int rank = 0;
+    while(curr != null){
+      if(curr.data < val){
+        rank += subtreeSize(curr.left) + 1;
+        curr = curr.right;
+      }
+      else
+        curr = curr.left;
+    }
+    return rank;
+  }
+
+  //finds the minimum number in the tree
+  int findMinIter(){
+    if(root == null)
+      throw new NoSuchElementException();
+    Node node = root;
+    while(node.left != null)
+      node = node.left;
+    return node.data;
+  }
+
+  //finds the maximum number in the tree
+  int findMaxIter(){
+    if(root == null)
+      throw new NoSuchElementException();
+    Node node = root;
+    while(node.right != null)
+      node = node.right;
+    return node.data;
+  }
+
+  //writes the tree into arr in order starting at index from, returns the
+  //number written
+  int inorderIter(int[] arr, int from){
+    int i = from;
+    PrimitiveIterator.OfInt it = iterator();
+    while(it.hasNext()){
+      arr[i] = it.nextInt();
+      i++;
+    }
+    return i - from;
+  }
+
+  /*
+  ----------------------------------------------------
+  ITERATORS
+  ----------------------------------------------------
+  */
+
+  //iterator over the keys of this version in order. Keeps its own path of
+  //parents, and versions never change, so it is safe while writers make
+  //new versions
+  private class Cursor implements PrimitiveIterator.OfInt{
+    private Node[] path = new Node[(root == null ? 1 : root.height + 2)];
+    private int pathSize;
+
+    //starts at the first key bigger than or equal to val
+    Cursor(int val){
+      Node curr = root;
+      while(curr != null){
+        if(curr.data >= val){
+          add(curr);
+          if(curr.data == val)
+            return;
+          curr = curr.left;
+        }
+        else
+          curr = curr.right;
+      }
+    }
+
+    //adds node to the top of the path
+    private void add(Node node){
+      if(pathSize == path.length)
+        path = Arrays.copyOf(path, pathSize * 2);
+      path[pathSize] = node;
+      pathSize++;
+    }
+
+    @Override
+    public boolean hasNext(){
+      return pathSize > 0;
+    }
+
+    @Override
+    public int nextInt(){
+      if(pathSize == 0)
+        throw new NoSuchElementException();
+      pathSize--;
+      Node node = path[pathSize];
+
+      //the nodes after node are the left spine of its right subtree
+      Node curr = node.right;
+      while(curr != null){
+        add(curr);
+        curr = curr.left;
+      }
+      return node.data;
+    }
+  }
+
+  //iterates the keys from smallest to biggest
+  PrimitiveIterator.OfInt iterator(){
+    return new Cursor(Integer.MIN_VALUE);
+  }
+
+  //iterates the keys bigger than or equal to val from smallest to biggest
+  PrimitiveIterator.OfInt iteratorFrom(int val){
+    return new Cursor(val);
+  }
+}
+
+//end of file
@@ -0,0 +1,535 @@
+/*
+Red-Black Tree Class
+Written by Giancarlo Calle
+*/
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+public class RedBlack implements OrderedIntSet{
+  //Node struct used in the tree
+  class Node{
+    int data;
+    Node right;
+    Node left;
+    Node parent;
+
+    //red nodes never have red children and every path down from a node
+    //passes the same number of black nodes, so no path is more than twice
+    //as long as another
+    boolean red;
+
+    //Node constructor, new nodes start out red
+    Node(int data){
+      this.data = data;
+      this.right = nil;
+      this.left = nil;
+      this.parent = nil;
+      this.red = true;
+    }
+  }
+
+  //black node standing in for every missing child and the root's parent, so
+  //the fixups can read its color and parent without null checks
+  private final Node nil = new Node(0);
+
+  //RedBlack constructor
+  public RedBlack(){
+    nil.red = false;
+    this.root = nil;
+    this.size = 0;
+    this.levels = 0;
+  }
+
+  //will be root of the tree
+  Node root;
+
+  //number of nodes in the tree
+  int size;
+  @Override
+  public int getSize(){
+    return size;
+  }
+
+  //records the amount of levels of the tree traversed w/ methods
+  long levels;
+  @Override
+  public long getLevels(){
+    return levels;
+  }
+
+  //prints nodes in the tree iteratively
+  void print(){
+    PrimitiveIterator.OfInt it = iterator();
+    while(it.hasNext())
+      System.out.print(it.nextInt() + " ");
+    System.out.print("\n");
+  }
+
+  /*
+  ----------------------------------------------------
+  BALANCING
+  ----------------------------------------------------
+  */
+
+  //method for left rotation using parent node
+  private void rotationL(Node p){
+    Node c = p.right;
+    p.right = c.left;
+    if(c.left != nil)
+      c.left.parent = p;
+    replace(p, c);
+    c.left = p;
+    p.parent = c;
+  }
+
+  //method for right rotation using grand parent node
+  private void rotationR(Node p){
+    Node c = p.left;
+    p.left = c.right;
+    if(c.right != nil)
+      c.right.parent = p;
+    replace(p, c);
+    c.right = p;
+    p.parent = c;
+  }
+
+  //puts node "with" where node "old" hangs from its parent
+  private void replace(Node old, Node with){
+    if(old.parent == nil)
+      root = with;
+    else if(old.parent.left == old)
+      old.parent.left = with;
+    else
+      old.parent.right = with;
+    with.parent = old.parent;
+  }
+
+  //fixes a red node with a red parent after an insert. Recoloring moves the
+  //problem two levels up, at most two rotations end it
+  private void insertFixup(Node node){
+    Node grand;
+    Node uncle;
+    while(node.parent.red){
+      grand = node.parent.parent;
+      if(node.parent == grand.left){
+        uncle = grand.right;
+
+        //case: red uncle, pushes the grand parent's black down a level
+        if(uncle.red){
+          node.parent.red = false;
+          uncle.red = false;
+          grand.red = true;
+          node = grand;
+          continue;
+        }
+
+        //case: node is an inner child, turns it into an outer child
+        if(node == node.parent.right){
+          node = node.parent;
+          rotationL(node);
+        }
+
+        //case: node is an outer child, rotates its parent up
+        node.parent.red = false;
+        grand.red = true;
+        rotationR(grand);
+      }
+      else{
+        uncle = grand.left;
+        if(uncle.red){
+          node.parent.red = false;
+          uncle.red = false;
+          grand.red = true;
+          node = grand;
+          continue;
+        }
+        if(node == node.parent.left){
+          node = node.parent;
+          rotationR(node);
+        }
+        node.parent.red = false;
+        grand.red = true;
+        rotationL(grand);
+      }
+    }
+    root.red = false;
+  }
+
+  //fixes the path through node being one black node short after a delete.
+  //Recoloring moves the problem one level up, at most three rotations end it
+  private void deleteFixup(Node node){
+    Node sibling;
+    while(node != root && !node.red){
+      if(node == node.parent.left){
+        sibling = node.parent.right;
+
+        //case: red sibling, rotates it up so the sibling is black
+        if(sibling.red){
+          sibling.red = false;
+          node.parent.red = true;
+          rotationL(node.parent);
+          sibling = node.parent.right;
+        }
+
+        //case: sibling has no red children, takes one black off both sides
+        if(!sibling.left.red && !sibling.right.red){
+          sibling.red = true;
+          node = node.parent;
+          continue;
+        }
+
+        //case: only the sibling's inner child is red, makes it the outer one
+        if(!sibling.right.red){
+          sibling.left.red = false;
+          sibling.red = true;
+          rotationR(sibling);
+          sibling = node.parent.right;
+        }
+
+        //case: sibling's outer child is red, rotating the sibling up adds
+        //the missing black node
+        sibling.red = node.parent.red;
+        node.parent.red = false;
+        sibling.right.red = false;
+        rotationL(node.parent);
+        node = root;
+      }
+      else{
+        sibling = node.parent.left;
+        if(sibling.red){
+          sibling.red = false;
+          node.parent.red = true;
+          rotationR(node.parent);
+          sibling = node.parent.left;
+        }
+        if(!sibling.left.red && !sibling.right.red){
+          sibling.red = true;
+          node = node.parent;
+          continue;
+        }
+        if(!sibling.left.red){
+          sibling.right.red = false;
+          sibling.red = true;
+          rotationL(sibling);
+          sibling = node.parent.left;
+        }
+        sibling.red = node.parent.red;
+        node.parent.red = false;
+        sibling.left.red = false;
+        rotationR(node.parent);
+        node = root;
+      }
+    }
+    node.red = false;
+  }
+
+  /*
+  ----------------------------------------------------
+  ITERATIVE METHODS
+  ----------------------------------------------------
+  */
+
+  //inserts val if it is not in the tree yet
+  @Override
+  public void insertIter(int val){
+    //loops until finds place to insert node
+    Node parent = nil;
+    Node curr = root;
+    while(curr != nil){
+      //edge case if val already exists in tree
+      if(curr.data == val)
+        return;
+      parent = curr;
+      if(curr.data > val)
+        curr = curr.left;
+      else
+        curr = curr.right;
+
+      //records number of levels traversed
+      levels++;
+    }
+
+    Node node = new Node(val);
+    node.parent = parent;
+    if(parent == nil)
+      root = node;
+    else if(parent.data > val)
+      parent.left = node;
+    else
+      parent.right = node;
+    size++;
+
+    //recolors and rotates up nodes
+    insertFixup(node);
+  }
+
+  //deletes node that contains number in the tree
+  @Override
+  public void deleteIter(int val){
+    //loops until finds node to delete or nil
+    Node curr = root;
+    while(curr != nil && curr.data != val){
+      if(curr.data > val)
+        curr = curr.left;
+      else
+        curr = curr.right;
+
+      //records number of levels traversed
+      levels++;
+    }
+
+    //returns if node to delete does not exist
+    if(curr == nil)
+      return;
+    size--;
+
+    //node that leaves its place in the tree, and the node taking that place
+    Node removed = curr;
+    boolean removedRed = removed.red;
+    Node child;
+    if(curr.left == nil){
+      child = curr.right;
+      replace(curr, child);
+    }
+    else if(curr.right == nil){
+      child = curr.left;
+      replace(curr, child);
+    }
+
+    //Deletes a node with two children. The successor, which never has a left
+    //child, leaves its place and takes over the node's place and color
+    else{
+      removed = leftMostNodeIter(curr.right);
+      removedRed = removed.red;
+      child = removed.right;
+      if(removed.parent == curr)
+        child.parent = removed;
+      else{
+        replace(removed, child);
+        removed.right = curr.right;
+        removed.right.parent = removed;
+      }
+      replace(curr, removed);
+      removed.left = curr.left;
+      removed.left.parent = removed;
+      removed.red = curr.red;
+    }
+
+    //removing a black node leaves the paths through child one black short
+    if(!removedRed)
+      deleteFixup(child);
+  }
+
+  private Node leftMostNodeIter(Node node){
+    while(node.left != nil)
+      node = node.left;
+    return node;
+  }
+
+  private Node rightMostNodeIter(Node node){
+    while(node.right != nil)
+      node = node.right;
+    return node;
+  }
+
+  //finds the smallest node that is bigger than "node", null if none
+  Node findNextIter(Node node){
+    if(node.right != nil)
+      return leftMostNodeIter(node.right);
+
+    //next node is the first parent node is in the left subtree of
+    while(node.parent != nil && node.parent.right == node)
+      node = node.parent;
+    return (node.parent == nil ? null : node.parent);
+  }
+
+  //finds the biggest node that is smaller than "node", null if none
+  Node findPrevIter(Node node){
+    if(node.left != nil)
+      return rightMostNodeIter(node.left);
+
+    //previous node is the first parent node is in the right subtree of
+    while(node.parent != nil && node.parent.left == node)
+      node = node.parent;
+    return (node.parent == nil ? null : node.parent);
+  }
+
+  //finds the smallest key that is bigger than val, null if none
+  @Override
+  public Integer findNextIter(int val){
+    Node node = higher(val);
+    return (node == null ? null : node.data);
+  }
+
+  //finds the biggest key that is smaller than val, null if none
+  @Override
+  public Integer findPrevIter(int val){
+    Node node = lower(val);
+    return (node == null ? null : node.data);
+  }
+
+  //returns whether val is in the tree
+  @Override
+  public boolean contains(int val){
+    Node curr = root;
+    while(curr != nil){
+      if(curr.data == val)
+        return true;
+      if(curr.data > val)
+        curr = curr.left;
+      else
+        curr = curr.right;
+
+      //records number of levels traversed
+      levels++;
+    }
+    return false;
+  }
+
+  //finds the biggest node that is smaller than or equal to val, null if none
+  Node floor(int val){
+    Node curr = root;
+    Node best = null;
+    while(curr != nil){
+      if(curr.data == val)
+        return curr;
+      if(curr.data > val)
+        curr = curr.left;
+      else{
+        best = curr;
+        curr = curr.right;
+      }
+
+      //records number of levels traversed
+      levels++;
+    }
+    return best;
+  }
+
+  //finds the smallest node that is bigger than or equal to val, null if none
+  Node ceiling(int val){
+    Node curr = root;
+    Node best = null;
+    while(curr != nil){
+      if(curr.data == val)
+        return curr;
+      if(curr.data < val)
+        curr = curr.right;
+      else{
+        best = curr;
+        curr = curr.left;
+      }
+
+      //records number of levels traversed
+      levels++;
+    }
+    return best;
+  }
+
+  //finds the biggest node that is strictly smaller than val, null if none
+  Node lower(int val){
+    Node curr = root;
+    Node best = null;
+    while(curr != nil){
+      if(curr.data >= val)
+        curr = curr.left;
+      else{
+        best = curr;
+        curr = curr.right;
+      }
+
+      //records number of levels traversed
+      levels++;
+    }
+    return best;
+  }
+
+  //finds the smallest node that is strictly bigger than val, null if none
+  Node higher(int val){
+    Node curr = root;
+    Node best = null;
+    while(curr != nil){
+      if(curr.data <= val)
+        curr = curr.right;
+      else{
+        best = curr;
+        curr = curr.left;
+      }
+
+      //records number of levels traversed
+      levels++;
+    }
+    return best;
+  }
+
+  //finds the minimum number in the tree iteratively
+  @Override
+  public int findMinIter(){
+    if(root == nil)
+      throw new NoSuchElementException();
+    return leftMostNodeIter(root).data;
+  }
+
+  //finds the maximum number in the tree iteratively
+  @Override
+  public int findMaxIter(){
+    if(root == nil)
+      throw new NoSuchElementException();
+    return rightMostNodeIter(root).data;
+  }
+
+  //writes the tree into arr in order starting at index from, returns the
+  //number written
+  @Override
+  public int inorderIter(int[] arr, int from){
+    int i = from;
+    if(root == nil)
+      return 0;
+    Node node = leftMostNodeIter(root);
+    while(node != null){
+      arr[i] = node.data;
+      i++;
+      node = findNextIter(node);
+    }
+    return i - from;
+  }
+
+  /*
+  ----------------------------------------------------
+  ITERATORS
+  ----------------------------------------------------
+  */
+
+  //iterator over the keys in order. Follows parent links instead of keeping
+  //a path, so next() is amortized O(1) without allocating. The tree must not
+  //be changed while iterating
+  private class Cursor implements PrimitiveIterator.OfInt{
+    private Node next;
+
+    Cursor(){
+      next = (root == nil ? null : leftMostNodeIter(root));
+    }
+
+    @Override
+    public boolean hasNext(){
+      return next != null;
+    }
+
+    @Override
+    public int nextInt(){
+      if(next == null)
+        throw new NoSuchElementException();
+      Node node = next;
+      next = findNextIter(node);
+      return node.data;
+    }
+  }
+
+  //iterates the keys from smallest to biggest
+  @Override
+  public PrimitiveIterator.OfInt iterator(){
+    return new Cursor();
+  }
+}
+
+//end of file
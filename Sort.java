@@ -0,0 +1,254 @@
+/*
+Tree based sorting methods
+Written by Giancarlo Calle
+*/
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class Sort{
+
+  //smallest chunk a parallel sort splits into, smaller inputs sort on one core
+  static final int MIN_CHUNK = 1 << 14;
+
+  /*
+  ----------------------------------------------------
+  TREE SORT
+  ----------------------------------------------------
+  */
+
+  //sorts an array using properties of an AVL, keeping duplicates
+  static void treeSort(int[] arr){
+    treeSort(arr, 0, arr.length);
+  }
+
+  //sorts arr from index "from" (inclusive) to "to" (exclusive) using an AVL
+  static void treeSort(int[] arr, int from, int to){
+    //creates AVL to store values in, staying balanced on presorted input
+    AVL a = new AVL();
+
+    //grabs elements from array and stores in AVL
+    int i;
+    for(i = from; i < to; i++){
+      a.insertDupIter(arr[i]);
+    }
+
+    //writes values back in order
+    a.inorderIter(arr, from);
+  }
+
+  /*
+  ----------------------------------------------------
+  TOP-K SORT
+  ----------------------------------------------------
+  */
+
+  //returns the k smallest values of arr in order
+  static int[] topK(int[] arr, int k){
+    return topK(Arrays.stream(arr).iterator(), k);
+  }
+
+  //returns the k smallest values streamed from values in order. Only the k
+  //smallest values seen so far are kept in the tree, so memory is O(k)
+  static int[] topK(PrimitiveIterator.OfInt values, int k){
+    if(k < 0)
+      throw new IllegalArgumentException("k must not be negative: " + k);
+
+    AVL a = new AVL();
+    int size = 0;
+    int max = 0;
+    int val;
+    while(values.hasNext()){
+      val = values.nextInt();
+
+      //fills the tree until it holds k values
+      if(size < k){
+        a.insertDupIter(val);
+        size++;
+        if(size == k)
+          max = a.findMaxIter();
+        continue;
+      }
+
+      //replaces the biggest kept value if val is smaller
+      if(k > 0 && val < max){
+        a.deleteIter(max);
+        a.insertDupIter(val);
+        max = a.findMaxIter();
+      }
+    }
+
+    int[] result = new int[size];
+    a.inorderIter(result);
+    return result;
+  }
+
+  /*
+  ----------------------------------------------------
+  PARALLEL SORT
+  ----------------------------------------------------
+  */
+
+  //sorts arr in parallel on the common pool
+  static void parallelSort(int[] arr){
+    parallelSort(arr, ForkJoinPool.commonPool());
+  }
+
+  //sorts arr by building one AVL per chunk on pool and merging the chunks
+  static void parallelSort(int[] arr, ForkJoinPool pool){
+    int n = arr.length;
+    int chunks = pool.getParallelism();
+    if(chunks < 2 || n < 2 * MIN_CHUNK){
+      treeSort(arr);
+      return;
+    }
+
+    //uses one chunk per worker unless that makes chunks too small
+    int chunkSize = (n + chunks - 1) / chunks;
+    if(chunkSize < MIN_CHUNK)
+      chunkSize = MIN_CHUNK;
+    chunks = (n + chunkSize - 1) / chunkSize;
+
+    //sorts chunks into a copy, then merges the sorted chunks back into arr
+    int[] runs = Arrays.copyOf(arr, n);
+    pool.invoke(new ChunkSort(runs, 0, chunks, chunkSize));
+    merge(runs, arr, chunks, chunkSize);
+  }
+
+  //fork/join task that tree sorts chunks [lo, hi) of arr. Tasks are only
+  //serializable because ForkJoinTask is, they are never serialized
+  @SuppressWarnings("serial")
+  private static class ChunkSort extends RecursiveAction{
+    private final int[] arr;
+    private final int lo;
+    private final int hi;
+    private final int chunkSize;
+
+    ChunkSort(int[] arr, int lo, int hi, int chunkSize){
+      this.arr = arr;
+      this.lo = lo;
+      this.hi = hi;
+      this.chunkSize = chunkSize;
+    }
+
+    @Override
+    protected void compute(){
+      //sorts a single chunk with its own tree
+      if(hi - lo == 1){
+        int from = lo * chunkSize;
+        int to = Math.min(from + chunkSize, arr.length);
+        treeSort(arr, from, to);
+        return;
+      }
+
+      //splits the chunks in half
+      int mid = (lo + hi) >>> 1;
+      invokeAll(new ChunkSort(arr, lo, mid, chunkSize),
+        new ChunkSort(arr, mid, hi, chunkSize));
+    }
+  }
+
+  //k-way merges the sorted chunks of runs into out with a min heap of chunks
+  private static void merge(int[] runs, int[] out, int chunks, int chunkSize){
+    int n = runs.length;
+
+    //next index and end index of every chunk
+    int[] pos = new int[chunks];
+    int[] end = new int[chunks];
+
+    //heap of chunk numbers ordered by their next value
+    int[] heap = new int[chunks];
+    int size = 0;
+
+    int c;
+    for(c = 0; c < chunks; c++){
+      pos[c] = c * chunkSize;
+      end[c] = Math.min(pos[c] + chunkSize, n);
+      heap[size] = c;
+      size++;
+    }
+    for(c = size / 2 - 1; c >= 0; c--)
+      siftDown(heap, size, c, runs, pos);
+
+    //repeatedly takes the smallest head and advances its chunk
+    int i;
+    for(i = 0; i < n; i++){
+      c = heap[0];
+      out[i] = runs[pos[c]];
+      pos[c]++;
+
+      //removes the chunk from the heap once it is exhausted
+      if(pos[c] == end[c]){
+        size--;
+        heap[0] = heap[size];
+      }
+      if(size > 0)
+        siftDown(heap, size, 0, runs, pos);
+    }
+  }
+
+  //restores the heap property below index i
+  private static void siftDown(int[] heap, int size, int i, int[] runs, int[] pos){
+    int c = heap[i];
+    int val = runs[pos[c]];
+    int child;
+    while(true){
+      child = 2 * i + 1;
+      if(child >= size)
+        break;
+
+      //picks the smaller child
+      if(child + 1 < size && runs[pos[heap[child + 1]]] < runs[pos[heap[child]]])
+        child++;
+      if(runs[pos[heap[child]]] >= val)
+        break;
+
+      heap[i] = heap[child];
+      i = child;
+    }
+    heap[i] = c;
+  }
+
+  /*
+  ----------------------------------------------------
+  SORTED KEYS
+  ----------------------------------------------------
+  */
+
+  //returns the keys of an ascending array once each for the bulk loaders,
+  //copying only if there are duplicates, so the result may be arr itself.
+  //Throws if arr is not ascending
+  static int[] dedupeSorted(int[] arr){
+    int unique = 0;
+    int i;
+    for(i = 0; i < arr.length; i++){
+      if(i > 0 && arr[i] < arr[i - 1])
+        throw new IllegalArgumentException("array is not sorted at index " + i);
+      if(i == 0 || arr[i] != arr[i - 1])
+        unique++;
+    }
+    if(unique == arr.length)
+      return arr;
+
+    int[] keys = new int[unique];
+    unique = 0;
+    for(i = 0; i < arr.length; i++){
+      if(i == 0 || arr[i] != arr[i - 1]){
+        keys[unique] = arr[i];
+        unique++;
+      }
+    }
+    return keys;
+  }
+
+  //returns a sorted copy of vals without duplicates, for the batch methods.
+  //vals can be in any order and is never returned or changed
+  static int[] sortAndDedupe(int[] vals){
+    int[] sorted = Arrays.copyOf(vals, vals.length);
+    Arrays.sort(sorted);
+    return dedupeSorted(sorted);
+  }
+}
+
+//end of file
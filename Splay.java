@@ -0,0 +1,379 @@
+/*
+Splay Tree Class
+Written by Giancarlo Calle
+*/
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+public class Splay implements OrderedIntSet{
+  //Node struct used in the tree
+  class Node{
+    int data;
+    Node right;
+    Node left;
+
+    //Node constructor
+    Node(int data){
+      this.data = data;
+    }
+  }
+
+  //Splay constructor
+  public Splay(){
+    this.root = null;
+    this.size = 0;
+    this.levels = 0;
+  }
+
+  //will be root of the tree
+  Node root;
+
+  //number of nodes in the tree
+  int size;
+  @Override
+  public int getSize(){
+    return size;
+  }
+
+  //records the amount of levels of the tree traversed w/ methods
+  long levels;
+  @Override
+  public long getLevels(){
+    return levels;
+  }
+
+  //holds the trees of nodes smaller and bigger than the key while splaying,
+  //in its right and left children
+  private final Node header = new Node(0);
+
+  //stack used to store parents while writing the tree in order. A splay tree
+  //can be as tall as it has nodes, so it grows as needed
+  private Node[] stack = new Node[64];
+  private int stackSize;
+
+  //adds node to the top of the stack
+  private void push(Node node){
+    if(stackSize == stack.length)
+      stack = Arrays.copyOf(stack, stackSize * 2);
+    stack[stackSize] = node;
+    stackSize++;
+  }
+
+  //removes and returns the top of the stack, clearing its slot so deleted
+  //nodes aren't kept reachable
+  private Node pop(){
+    stackSize--;
+    Node node = stack[stackSize];
+    stack[stackSize] = null;
+    return node;
+  }
+
+  //prints nodes in the tree iteratively
+  void print(){
+    PrimitiveIterator.OfInt it = iterator();
+    while(it.hasNext())
+      System.out.print(it.nextInt() + " ");
+    System.out.print("\n");
+  }
+
+  /*
+  ----------------------------------------------------
+  SPLAYING
+  ----------------------------------------------------
+  */
+
+  //Moves the node holding val to root, or the last node on the path to val
+  //if val is not in the tree. Splits the tree top down while walking, so no
+  //parents are stored, and rotates every two steps of the same direction,
+  //which roughly halves the depth of the path walked. Recently used keys end
+  //up near root, so skewed lookups are cheaper than in a balanced tree and
+  //any sequence of m operations costs O(m log n). The tree must not be empty
+  private void splay(int val){
+    //last node of the trees of smaller and of bigger nodes
+    Node smaller = header;
+    Node bigger = header;
+    header.left = null;
+    header.right = null;
+
+    Node curr = root;
+    Node child;
+    while(curr.data != val){
+      if(curr.data > val){
+        if(curr.left == null)
+          break;
+
+        //case: two steps left, rotates right first
+        if(curr.left.data > val){
+          child = curr.left;
+          curr.left = child.right;
+          child.right = curr;
+          curr = child;
+          levels++;
+          if(curr.left == null)
+            break;
+        }
+
+        //links curr into the tree of bigger nodes
+        bigger.left = curr;
+        bigger = curr;
+        curr = curr.left;
+      }
+      else{
+        if(curr.right == null)
+          break;
+
+        //case: two steps right, rotates left first
+        if(curr.right.data < val){
+          child = curr.right;
+          curr.right = child.left;
+          child.left = curr;
+          curr = child;
+          levels++;
+          if(curr.right == null)
+            break;
+        }
+
+        //links curr into the tree of smaller nodes
+        smaller.right = curr;
+        smaller = curr;
+        curr = curr.right;
+      }
+
+      //records number of levels traversed
+      levels++;
+    }
+
+    //puts the trees of smaller and bigger nodes under curr
+    smaller.right = curr.left;
+    bigger.left = curr.right;
+    curr.left = header.right;
+    curr.right = header.left;
+    root = curr;
+  }
+
+  /*
+  ----------------------------------------------------
+  ITERATIVE METHODS
+  ----------------------------------------------------
+  */
+
+  //inserts val if it is not in the tree yet, the node holding val ends up
+  //at root either way
+  @Override
+  public void insertIter(int val){
+    //checks if root is empty
+    if(root == null){
+      root = new Node(val);
+      size++;
+      return;
+    }
+
+    //edge case if val already exists in tree
+    splay(val);
+    if(root.data == val)
+      return;
+
+    //root is now next to val in order, so the new node splits the tree at it
+    Node node = new Node(val);
+    if(root.data > val){
+      node.left = root.left;
+      node.right = root;
+      root.left = null;
+    }
+    else{
+      node.right = root.right;
+      node.left = root;
+      root.right = null;
+    }
+    root = node;
+    size++;
+  }
+
+  //deletes node that contains number in the tree
+  @Override
+  public void deleteIter(int val){
+    if(root == null)
+      return;
+
+    //returns if node to delete does not exist
+    splay(val);
+    if(root.data != val)
+      return;
+
+    //Joins the subtrees. Splaying val in the left subtree brings its biggest
+    //node to root, which then has no right child
+    Node right = root.right;
+    if(root.left == null)
+      root = right;
+    else{
+      root = root.left;
+      splay(val);
+      root.right = right;
+    }
+    size--;
+  }
+
+  //finds the smallest key that is bigger than val, null if none
+  @Override
+  public Integer findNextIter(int val){
+    Node node = higher(val);
+    return (node == null ? null : node.data);
+  }
+
+  //finds the biggest key that is smaller than val, null if none
+  @Override
+  public Integer findPrevIter(int val){
+    Node node = lower(val);
+    return (node == null ? null : node.data);
+  }
+
+  //returns whether val is in the tree, moving it to root
+  @Override
+  public boolean contains(int val){
+    if(root == null)
+      return false;
+    splay(val);
+    return root.data == val;
+  }
+
+  //finds the biggest node that is smaller than or equal to val, null if none.
+  //If root isn't the answer after splaying, the answer is the last node that
+  //was linked into the left subtree, on its right spine
+  Node floor(int val){
+    if(root == null)
+      return null;
+    splay(val);
+    if(root.data <= val)
+      return root;
+    Node node = root.left;
+    if(node == null)
+      return null;
+    while(node.right != null)
+      node = node.right;
+    return node;
+  }
+
+  //finds the smallest node that is bigger than or equal to val, null if none.
+  //If root isn't the answer after splaying, the answer is the last node that
+  //was linked into the right subtree, on its left spine
+  Node ceiling(int val){
+    if(root == null)
+      return null;
+    splay(val);
+    if(root.data >= val)
+      return root;
+    Node node = root.right;
+    if(node == null)
+      return null;
+    while(node.left != null)
+      node = node.left;
+    return node;
+  }
+
+  //finds the biggest node that is strictly smaller than val, null if none
+  Node lower(int val){
+    if(val == Integer.MIN_VALUE)
+      return null;
+    return floor(val - 1);
+  }
+
+  //finds the smallest node that is strictly bigger than val, null if none
+  Node higher(int val){
+    if(val == Integer.MAX_VALUE)
+      return null;
+    return ceiling(val + 1);
+  }
+
+  //finds the minimum number in the tree, moving it to root
+  @Override
+  public int findMinIter(){
+    if(root == null)
+      throw new NoSuchElementException();
+    splay(Integer.MIN_VALUE);
+    return root.data;
+  }
+
+  //finds the maximum number in the tree, moving it to root
+  @Override
+  public int findMaxIter(){
+    if(root == null)
+      throw new NoSuchElementException();
+    splay(Integer.MAX_VALUE);
+    return root.data;
+  }
+
+  //writes the tree into arr in order starting at index from, returns the
+  //number written
+  @Override
+  public int inorderIter(int[] arr, int from){
+    Node curr = root;
+    int i = from;
+    while(curr != null || stackSize > 0){
+      //goes as far left as possible storing parents
+      while(curr != null){
+        push(curr);
+        curr = curr.left;
+      }
+
+      //writes the smallest unvisited node and moves to its right subtree
+      curr = pop();
+      arr[i] = curr.data;
+      i++;
+      curr = curr.right;
+    }
+    return i - from;
+  }
+
+  /*
+  ----------------------------------------------------
+  ITERATORS
+  ----------------------------------------------------
+  */
+
+  //iterator over the keys in order. Keeps its own path of parents and never
+  //splays, so iterating leaves the tree's shape alone. The tree must not be
+  //changed while iterating
+  private class Cursor implements PrimitiveIterator.OfInt{
+    private Node[] path = new Node[64];
+    private int pathSize;
+
+    Cursor(){
+      addLeftSpine(root);
+    }
+
+    //adds node and its left spine to the top of the path
+    private void addLeftSpine(Node node){
+      while(node != null){
+        if(pathSize == path.length)
+          path = Arrays.copyOf(path, pathSize * 2);
+        path[pathSize] = node;
+        pathSize++;
+        node = node.left;
+      }
+    }
+
+    @Override
+    public boolean hasNext(){
+      return pathSize > 0;
+    }
+
+    @Override
+    public int nextInt(){
+      if(pathSize == 0)
+        throw new NoSuchElementException();
+      pathSize--;
+      Node node = path[pathSize];
+      addLeftSpine(node.right);
+      return node.data;
+    }
+  }
+
+  //iterates the keys from smallest to biggest
+  @Override
+  public PrimitiveIterator.OfInt iterator(){
+    return new Cursor();
+  }
+}
+
+//end of file
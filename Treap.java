@@ -0,0 +1,451 @@
+/*
+Randomized Treap Class
+Written by Giancarlo Calle
+*/
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.SplittableRandom;
+
+public class Treap implements OrderedIntSet{
+  //Node struct used in the tree
+  class Node{
+    int data;
+    Node right;
+    Node left;
+
+    //random priority, parents always have a bigger priority than their
+    //children. The tree has the shape of a BST built from the keys in
+    //priority order, which is expected O(log n) tall whatever the input order
+    int priority;
+
+    //Node constructor, every node created is added to the tree
+    Node(int data){
+      this.data = data;
+      this.priority = random.nextInt();
+      size++;
+    }
+  }
+
+  //draws the node priorities
+  private final SplittableRandom random;
+
+  //Treap constructor
+  public Treap(){
+    this(new SplittableRandom());
+  }
+
+  //Treap constructor with a fixed seed so the tree's shape can be repeated
+  public Treap(long seed){
+    this(new SplittableRandom(seed));
+  }
+
+  private Treap(SplittableRandom random){
+    this.random = random;
+    this.root = null;
+    this.size = 0;
+    this.levels = 0;
+  }
+
+  //will be root of the tree
+  Node root;
+
+  //number of nodes in the tree
+  int size;
+  @Override
+  public int getSize(){
+    return size;
+  }
+
+  //records the amount of levels of the tree traversed w/ methods
+  long levels;
+  @Override
+  public long getLevels(){
+    return levels;
+  }
+
+  //stack used to store parents for methods, grows if the tree gets unluckily
+  //tall
+  private Node[] stack = new Node[64];
+  private int stackSize;
+
+  //adds node to the top of the stack
+  private void push(Node node){
+    if(stackSize == stack.length)
+      stack = Arrays.copyOf(stack, stackSize * 2);
+    stack[stackSize] = node;
+    stackSize++;
+  }
+
+  //removes and returns the top of the stack, clearing its slot so deleted
+  //nodes aren't kept reachable
+  private Node pop(){
+    stackSize--;
+    Node node = stack[stackSize];
+    stack[stackSize] = null;
+    return node;
+  }
+
+  //clears the stack, every slot above stackSize is already null
+  private void clearStack(){
+    while(stackSize > 0){
+      stackSize--;
+      stack[stackSize] = null;
+    }
+  }
+
+  //prints nodes in the tree iteratively
+  void print(){
+    PrimitiveIterator.OfInt it = iterator();
+    while(it.hasNext())
+      System.out.print(it.nextInt() + " ");
+    System.out.print("\n");
+  }
+
+  /*
+  ----------------------------------------------------
+  BALANCING
+  ----------------------------------------------------
+  */
+
+  //method for right rotation using grand parent node
+  private Node rotationR(Node p){
+    Node c = p.left;
+    p.left = c.right;
+    c.right = p;
+    return c;
+  }
+
+  //method for left rotation using parent node
+  private Node rotationL(Node p){
+    Node c = p.right;
+    p.right = c.left;
+    c.left = p;
+    return c;
+  }
+
+  //puts node "with" where node "old" hangs from parent, or at root if
+  //parent is null
+  private void replace(Node parent, Node old, Node with){
+    if(parent == null)
+      root = with;
+    else if(parent.left == old)
+      parent.left = with;
+    else
+      parent.right = with;
+  }
+
+  /*
+  ----------------------------------------------------
+  ITERATIVE METHODS
+  ----------------------------------------------------
+  */
+
+  //inserts val if it is not in the tree yet
+  @Override
+  public void insertIter(int val){
+    //checks if root is empty
+    if(root == null){
+      root = new Node(val);
+      return;
+    }
+
+    //loops until finds place to insert node
+    Node curr = root;
+    Node node;
+    while(true){
+      //adds parent to stack
+      push(curr);
+
+      //edge case if val already exists in tree
+      if(curr.data == val){
+        clearStack();
+        return;
+      }
+
+      //checks if it should be to the left
+      if(curr.data > val){
+        if(curr.left == null){
+          node = new Node(val);
+          curr.left = node;
+          break;
+        }
+        curr = curr.left;
+      }
+
+      //checks if it should be to the right
+      else{
+        if(curr.right == null){
+          node = new Node(val);
+          curr.right = node;
+          break;
+        }
+        curr = curr.right;
+      }
+
+      //records number of levels traversed
+      levels++;
+    }
+
+    //rotates the new node up until its parent has a bigger priority
+    Node parent;
+    Node rotated;
+    while(stackSize > 0 && stack[stackSize - 1].priority < node.priority){
+      parent = pop();
+      if(parent.left == node)
+        rotated = rotationR(parent);
+      else
+        rotated = rotationL(parent);
+      replace((stackSize > 0 ? stack[stackSize - 1] : null), parent, rotated);
+    }
+    clearStack();
+  }
+
+  //deletes node that contains number in the tree
+  @Override
+  public void deleteIter(int val){
+    //loops until finds node to delete or null
+    Node parent = null;
+    Node curr = root;
+    while(curr != null && curr.data != val){
+      parent = curr;
+      if(curr.data > val)
+        curr = curr.left;
+      else
+        curr = curr.right;
+
+      //records number of levels traversed
+      levels++;
+    }
+
+    //returns if node to delete does not exist
+    if(curr == null)
+      return;
+    size--;
+
+    //rotates the node down below its child with the bigger priority until
+    //it has at most one child
+    Node rotated;
+    while(curr.left != null && curr.right != null){
+      if(curr.left.priority > curr.right.priority)
+        rotated = rotationR(curr);
+      else
+        rotated = rotationL(curr);
+      replace(parent, curr, rotated);
+      parent = rotated;
+    }
+
+    //replaces node with its only child, or null if it has no children
+    replace(parent, curr, (curr.left == null ? curr.right : curr.left));
+  }
+
+  private Node leftMostNodeIter(Node node){
+    while(node.left != null)
+      node = node.left;
+    return node;
+  }
+
+  private Node rightMostNodeIter(Node node){
+    while(node.right != null)
+      node = node.right;
+    return node;
+  }
+
+  //finds the smallest key that is bigger than val, null if none
+  @Override
+  public Integer findNextIter(int val){
+    Node node = higher(val);
+    return (node == null ? null : node.data);
+  }
+
+  //finds the biggest key that is smaller than val, null if none
+  @Override
+  public Integer findPrevIter(int val){
+    Node node = lower(val);
+    return (node == null ? null : node.data);
+  }
+
+  //returns whether val is in the tree
+  @Override
+  public boolean contains(int val){
+    Node curr = root;
+    while(curr != null){
+      if(curr.data == val)
+        return true;
+      if(curr.data > val)
+        curr = curr.left;
+      else
+        curr = curr.right;
+
+      //records number of levels traversed
+      levels++;
+    }
+    return false;
+  }
+
+  //finds the biggest node that is smaller than or equal to val, null if none
+  Node floor(int val){
+    Node curr = root;
+    Node best = null;
+    while(curr != null){
+      if(curr.data == val)
+        return curr;
+      if(curr.data > val)
+        curr = curr.left;
+      else{
+        best = curr;
+        curr = curr.right;
+      }
+
+      //records number of levels traversed
+      levels++;
+    }
+    return best;
+  }
+
+  //finds the smallest node that is bigger than or equal to val, null if none
+  Node ceiling(int val){
+    Node curr = root;
+    Node best = null;
+    while(curr != null){
+      if(curr.data == val)
+        return curr;
+      if(curr.data < val)
+        curr = curr.right;
+      else{
+        best = curr;
+        curr = curr.left;
+      }
+
+      //records number of levels traversed
+      levels++;
+    }
+    return best;
+  }
+
+  //finds the biggest node that is strictly smaller than val, null if none
+  Node lower(int val){
+    Node curr = root;
+    Node best = null;
+    while(curr != null){
+      if(curr.data >= val)
+        curr = curr.left;
+      else{
+        best = curr;
+        curr = curr.right;
+      }
+
+      //records number of levels traversed
+      levels++;
+    }
+    return best;
+  }
+
+  //finds the smallest node that is strictly bigger than val, null if none
+  Node higher(int val){
+    Node curr = root;
+    Node best = null;
+    while(curr != null){
+      if(curr.data <= val)
+        curr = curr.right;
+      else{
+        best = curr;
+        curr = curr.left;
+      }
+
+      //records number of levels traversed
+      levels++;
+    }
+    return best;
+  }
+
+  //finds the minimum number in the tree iteratively
+  @Override
+  public int findMinIter(){
+    if(root == null)
+      throw new NoSuchElementException();
+    return leftMostNodeIter(root).data;
+  }
+
+  //finds the maximum number in the tree iteratively
+  @Override
+  public int findMaxIter(){
+    if(root == null)
+      throw new NoSuchElementException();
+    return rightMostNodeIter(root).data;
+  }
+
+  //writes the tree into arr in order starting at index from, returns the
+  //number written
+  @Override
+  public int inorderIter(int[] arr, int from){
+    Node curr = root;
+    int i = from;
+    while(curr != null || stackSize > 0){
+      //goes as far left as possible storing parents
+      while(curr != null){
+        push(curr);
+        curr = curr.left;
+      }
+
+      //writes the smallest unvisited node and moves to its right subtree
+      curr = pop();
+      arr[i] = curr.data;
+      i++;
+      curr = curr.right;
+    }
+    return i - from;
+  }
+
+  /*
+  ----------------------------------------------------
+  ITERATORS
+  ----------------------------------------------------
+  */
+
+  //iterator over the keys in order. Keeps its own path of parents so next()
+  //is amortized O(1) and iterators don't share the tree's stack. The tree
+  //must not be changed while iterating
+  private class Cursor implements PrimitiveIterator.OfInt{
+    private Node[] path = new Node[64];
+    private int pathSize;
+
+    Cursor(){
+      addLeftSpine(root);
+    }
+
+    //adds node and its left spine to the top of the path
+    private void addLeftSpine(Node node){
+      while(node != null){
+        if(pathSize == path.length)
+          path = Arrays.copyOf(path, pathSize * 2);
+        path[pathSize] = node;
+        pathSize++;
+        node = node.left;
+      }
+    }
+
+    @Override
+    public boolean hasNext(){
+      return pathSize > 0;
+    }
+
+    @Override
+    public int nextInt(){
+      if(pathSize == 0)
+        throw new NoSuchElementException();
+      pathSize--;
+      Node node = path[pathSize];
+      addLeftSpine(node.right);
+      return node.data;
+    }
+  }
+
+  //iterates the keys from smallest to biggest
+  @Override
+  public PrimitiveIterator.OfInt iterator(){
+    return new Cursor();
+  }
+}
+
+//end of file
@@ -0,0 +1,164 @@
+/*
+Tree Metrics Class
+Written by Giancarlo Calle
+*/
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+//Counters and latency histograms for the operations of a tree, to watch its
+//health while it runs. A tree only records into one after setMetrics(), and
+//skips all of it behind a null check otherwise. Every counter is a striped
+//LongAdder, so one TreeMetrics can be shared by trees on many threads and
+//read or reset from another without locks
+public class TreeMetrics{
+  //kinds of operations recorded
+  static final int INSERT = 0;
+  static final int DELETE = 1;
+  static final int CONTAINS = 2;
+  static final String[] OP_NAMES = {"insert", "delete", "contains"};
+
+  private final LongAdder[] ops = new LongAdder[OP_NAMES.length];
+  private final LatencyHistogram[] latency = new LatencyHistogram[OP_NAMES.length];
+
+  //levels walked by operations, as getLevels() counts them. The trees make
+  //one key comparison per level, so this is also the comparisons made
+  private final LongAdder pathLength = new LongAdder();
+  private final LongAccumulator maxPathLength = new LongAccumulator(Long::max, 0);
+
+  //rotations done, and nodes rebalanced on the way back up after a change
+  private final LongAdder rotations = new LongAdder();
+  private final LongAdder rebalances = new LongAdder();
+  private final LongAdder rebalanceDepth = new LongAdder();
+  private final LongAccumulator maxRebalanceDepth = new LongAccumulator(Long::max, 0);
+
+  //TreeMetrics constructor
+  public TreeMetrics(){
+    int op;
+    for(op = 0; op < OP_NAMES.length; op++){
+      ops[op] = new LongAdder();
+      latency[op] = new LatencyHistogram();
+    }
+  }
+
+  /*
+  ----------------------------------------------------
+  RECORDING
+  ----------------------------------------------------
+  */
+
+  //records an operation of kind op that took nanos and walked path levels
+  void record(int op, long nanos, long path){
+    ops[op].increment();
+    latency[op].record(nanos);
+    pathLength.add(path);
+    maxPathLength.accumulate(path);
+  }
+
+  //Records a batch of count operations of kind op, like insertAll, that took
+  //nanos and walked path levels between them. Keys of a batch share their
+  //work, so each counts as one operation of the average latency and path.
+  //The longest path is left alone since a batch only knows its average
+  void recordBatch(int op, long nanos, long path, int count){
+    if(count <= 0)
+      return;
+    ops[op].add(count);
+    latency[op].record(nanos / count, count);
+    pathLength.add(path);
+  }
+
+  //records one rotation
+  void rotation(){
+    rotations.increment();
+  }
+
+  //records a rebalance that fixed depth nodes above a change
+  void rebalance(int depth){
+    rebalances.increment();
+    rebalanceDepth.add(depth);
+    maxRebalanceDepth.accumulate(depth);
+  }
+
+  //forgets everything recorded so far
+  void reset(){
+    int op;
+    for(op = 0; op < OP_NAMES.length; op++){
+      ops[op].reset();
+      latency[op].reset();
+    }
+    pathLength.reset();
+    maxPathLength.reset();
+    rotations.reset();
+    rebalances.reset();
+    rebalanceDepth.reset();
+    maxRebalanceDepth.reset();
+  }
+
+  /*
+  ----------------------------------------------------
+  READING
+  ----------------------------------------------------
+  */
+
+  //number of operations of kind op recorded
+  long getOps(int op){
+    return ops[op].sum();
+  }
+
+  //latencies of operations of kind op
+  LatencyHistogram getLatency(int op){
+    return latency[op];
+  }
+
+  //total levels walked by every operation
+  long getPathLength(){
+    return pathLength.sum();
+  }
+
+  //most levels walked by one operation, batches are not counted
+  long getMaxPathLength(){
+    return maxPathLength.get();
+  }
+
+  long getRotations(){
+    return rotations.sum();
+  }
+
+  long getRebalances(){
+    return rebalances.sum();
+  }
+
+  //average nodes fixed per rebalance, 0 if there were none
+  double getAverageRebalanceDepth(){
+    long count = rebalances.sum();
+    return (count == 0 ? 0 : (double) rebalanceDepth.sum() / count);
+  }
+
+  long getMaxRebalanceDepth(){
+    return maxRebalanceDepth.get();
+  }
+
+  //one line per kind of operation with its count and latency percentiles in
+  //nanoseconds, then a line of the tree shape counters
+  @Override
+  public String toString(){
+    StringBuilder out = new StringBuilder();
+    long total = 0;
+    long count;
+    int op;
+    for(op = 0; op < OP_NAMES.length; op++){
+      count = ops[op].sum();
+      total += count;
+      out.append(String.format("%-8s ops: %,12d  p50: %,8d ns  p99: %,8d ns"
+        + "  p99.9: %,8d ns  max: %,10d ns%n", OP_NAMES[op], count,
+        latency[op].percentile(50), latency[op].percentile(99),
+        latency[op].percentile(99.9), latency[op].percentile(100)));
+    }
+    out.append(String.format("path avg: %.2f max: %d  rotations: %,d"
+      + "  rebalance depth avg: %.2f max: %d%n",
+      (total == 0 ? 0 : (double) pathLength.sum() / total), maxPathLength.get(),
+      rotations.sum(), getAverageRebalanceDepth(), maxRebalanceDepth.get()));
+    return out.toString();
+  }
+}
+
+//end of file
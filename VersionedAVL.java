@@ -0,0 +1,72 @@
+/*
+Versioned AVL Tree Class
+Written by Giancarlo Calle
+*/
+import java.util.concurrent.atomic.AtomicReference;
+
+//Holds the current version of a PersistentAVL for threads sharing one tree.
+//Readers take a snapshot, a version that never changes, in O(1) and read
+//it without locks for as long as they like. Writers build the next version
+//from the current one and publish it with compareAndSet, rebuilding it
+//from the newer version if another writer published first. A lost race
+//only costs the O(log n) path that was copied
+public class VersionedAVL{
+  private final AtomicReference<PersistentAVL> current;
+
+  //VersionedAVL constructor, starts from the empty tree
+  public VersionedAVL(){
+    this(PersistentAVL.EMPTY);
+  }
+
+  //VersionedAVL constructor, starts from version
+  public VersionedAVL(PersistentAVL version){
+    this.current = new AtomicReference<>(version);
+  }
+
+  //returns the current version, which later writes never change
+  PersistentAVL snapshot(){
+    return current.get();
+  }
+
+  //number of keys in the current version
+  public int getSize(){
+    return current.get().getSize();
+  }
+
+  //adds val, returns whether it was not in the tree yet
+  boolean insert(int val){
+    PersistentAVL old;
+    PersistentAVL next;
+    do{
+      old = current.get();
+      next = old.insert(val);
+
+      //case: val is already there, nothing to publish
+      if(next == old)
+        return false;
+    }while(!current.compareAndSet(old, next));
+    return true;
+  }
+
+  //removes val, returns whether it was in the tree
+  boolean delete(int val){
+    PersistentAVL old;
+    PersistentAVL next;
+    do{
+      old = current.get();
+      next = old.delete(val);
+
+      //case: val is not there, nothing to publish
+      if(next == old)
+        return false;
+    }while(!current.compareAndSet(old, next));
+    return true;
+  }
+
+  //returns whether val is in the current version
+  boolean contains(int val){
+    return current.get().contains(val);
+  }
+}
+
+//end of file